@@ -0,0 +1,105 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixed corpus of benchmark positions (recorded from seeded random playouts), each written as the
+ * comma-separated coordinate moves that reach it from the initial position. Scripts are plain text
+ * so they stay valid when the internal move representation changes; the "mid" entries stop after
+ * 16-18 moves with most material still on the board, the "end" entries once seven or fewer pieces
+ * remain.
+ */
+final class BenchmarkCorpus {
+
+    /** Names accepted by the {@code position} parameter of the benchmarks. */
+    static final String[] NAMES = {"mid1", "mid2", "mid3", "end1", "end2", "end3"};
+
+    private static final Map<String, String> SCRIPTS = Map.of(
+        "mid1",
+            "b1 c3,f7 f6,h2 h4,g7 g5,c3 b1,h7 h6,h4 g5,h6 g5,"
+            + "e2 e3,b7 b6,h1 h8,f6 f5,g1 h3,d7 d6,h8 g8,g5 g4,"
+            + "h3 f4,a7 a5,f4 e2,c8 e6,g8 h8,d6 d5,h8 f8,e8 d7,"
+            + "e2 f4,d7 d6,f8 f6,c7 c5,f6 h6,d8 d7,h6 e6,d6 c7",
+        "mid2",
+            "c2 c4,f7 f6,h2 h3,c7 c6,g2 g4,c6 c5,f2 f3,e7 e6,"
+            + "a2 a3,d8 c7,h3 h4,b7 b5,b1 c3,c8 b7,c3 b5,b7 c8,"
+            + "e2 e4,f8 d6,a1 a2,c7 b7,g1 h3,e8 e7,b2 b3,g7 g6,"
+            + "f1 d3,b7 b5,d3 f1,b8 c6,c4 b5,d6 f4,e1 f2,d7 d5,"
+            + "h1 h2,c8 d7",
+        "mid3",
+            "e2 e4,g8 h6,g2 g3,h6 f5,f2 f3,f5 g3,b1 a3,g3 f1,"
+            + "e1 e2,h7 h5,e2 f1,e7 e5,g1 h3,a7 a6,d1 e1,b7 b6,"
+            + "f1 g1,f8 d6,e1 g3,d6 a3,g3 g2,g7 g6,b2 a3,d8 f6,"
+            + "g2 g5,h5 h4,g5 e5,f6 e5,d2 d4,g6 g5,c2 c4,e5 h2,"
+            + "g1 h2,h8 g8,c1 g5,f7 f6",
+        "end1",
+            "b2 b3,g8 h6,b3 b4,a7 a5,b4 a5,a8 a5,f2 f4,a5 a2,"
+            + "a1 a2,c7 c5,a2 b2,d8 b6,b2 b6,h6 f5,g2 g3,f5 g3,"
+            + "b6 c6,b8 c6,c1 b2,g3 e2,b1 a3,c6 b8,g1 e2,h7 h6,"
+            + "f4 f5,e8 d8,h2 h3,h6 h5,c2 c4,h8 g8,b2 g7,b8 a6,"
+            + "g7 f8,d8 e8,e2 c3,e7 e6,d2 d3,g8 f8,d1 h5,e6 f5,"
+            + "h5 f5,f8 h8,f5 c5,a6 c5,f1 g2,e8 d8,h1 f1,c5 a4,"
+            + "c3 a4,h8 h3,f1 f6,h3 h2,f6 f7,h2 g2,f7 d7,d8 d7,"
+            + "a4 c3,g2 g6,c3 a4,d7 e8,a3 c2,e8 d8,c2 d4,g6 g3,"
+            + "c4 c5,g3 d3,e1 e2,d3 d4",
+        "end2",
+            "d2 d4,g8 h6,c1 d2,h8 g8,a2 a4,a7 a6,a4 a5,d7 d6,"
+            + "d2 h6,f7 f6,h6 g7,g8 g7,g1 h3,g7 g2,f1 g2,c8 h3,"
+            + "g2 b7,e7 e5,b2 b3,f8 g7,d4 e5,h3 g4,b7 a8,f6 e5,"
+            + "h2 h4,d8 h4,c2 c4,h4 f6,h1 h7,f6 f2,e1 f2,g4 d7,"
+            + "d1 d6,c7 d6,h7 g7,d6 d5,a8 d5,e8 f8,d5 f3,f8 g7,"
+            + "e2 e3,g7 g8,b1 a3,d7 c8,f3 h5,c8 h3,e3 e4,b8 d7,"
+            + "h5 g4,h3 g4,a3 b1,g4 f5,e4 f5,g8 f8,b3 b4,d7 f6,"
+            + "b4 b5,a6 b5,c4 b5,f8 g7,b1 c3,g7 h7,a5 a6,f6 g4,"
+            + "f2 g3,g4 e3,g3 f2,e3 f5,a1 g1,h7 h8,f2 g2,f5 g3,"
+            + "g2 g3",
+        "end3",
+            "f2 f4,a7 a6,f4 f5,a6 a5,c2 c3,g8 h6,e2 e4,h6 f5,"
+            + "e4 f5,g7 g6,a2 a3,d7 d6,f5 g6,h7 g6,d1 e2,c8 h3,"
+            + "g2 h3,b8 c6,e2 e7,f8 e7,d2 d4,h8 h3,b2 b3,h3 c3,"
+            + "e1 d2,c3 c1,d2 c1,c6 d4,h2 h3,d4 b3,c1 c2,e8 f8,"
+            + "c2 b3,d6 d5,b3 a2,a8 a6,b1 c3,e7 f6,f1 a6,f6 c3,"
+            + "a6 b7,c3 e5,b7 d5,d8 d5,a2 b1,e5 a1,b1 a1,d5 d1,"
+            + "a1 b2,d1 g1,h1 g1,g6 g5,g1 g5,f8 e7,g5 g1,e7 d6,"
+            + "g1 g7,a5 a4,g7 f7"
+    );
+
+    private BenchmarkCorpus() {
+        // utility
+    }
+
+    /** Returns the individual move strings of a corpus entry, in playing order. */
+    static List<String> moves(String name) {
+        String script = SCRIPTS.get(name);
+        if (script == null) {
+            throw new IllegalArgumentException("Unknown corpus position: " + name);
+        }
+        List<String> moves = new ArrayList<>();
+        for (String move : script.split(",")) {
+            moves.add(move);
+        }
+        return moves;
+    }
+
+    /** Parses every move of a corpus entry up front so replay benchmarks exclude parsing. */
+    static List<Command> commands(String name) {
+        List<Command> commands = new ArrayList<>();
+        for (String move : moves(name)) {
+            commands.add(MoveParser.parse(move));
+        }
+        return commands;
+    }
+
+    /** Plays a corpus entry on a fresh game and returns the resulting position. */
+    static Game replay(String name) {
+        Game game = new Game();
+        for (Command command : commands(name)) {
+            if (game.apply(command).message == ReturnPlay.Message.ILLEGAL_MOVE) {
+                throw new IllegalStateException("Corpus entry " + name + " rejected " + command);
+            }
+        }
+        return game;
+    }
+}
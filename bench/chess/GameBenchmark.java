@@ -0,0 +1,111 @@
+package chess;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH throughput benchmarks for the request path ({@link Chess#play}, {@link MoveParser#parse},
+ * {@link Game#apply}) and the engine internals it leans on (legal move generation, board copies,
+ * piece listing and snapshot building), run over every {@link BenchmarkCorpus} position.
+ * <p>
+ * These sources live outside the main {@code chess/} tree because they need jmh-core and the JMH
+ * annotation processor on the classpath. Run them through {@link #main}, which attaches the GC
+ * profiler so each result comes with {@code gc.alloc.rate.norm} (bytes allocated per operation).
+ * <p>
+ * Benchmarks that replay a script measure a whole game (one operation = every move of the entry),
+ * because a {@link Game} cannot be rewound; the rest measure a single call on the final position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    @Param({"mid1", "mid2", "mid3", "end1", "end2", "end3"})
+    public String position;
+
+    private List<String> moves;
+    private List<Command> commands;
+    private Game game;
+
+    @Setup
+    public void setUp() {
+        moves = BenchmarkCorpus.moves(position);
+        commands = BenchmarkCorpus.commands(position);
+        game = BenchmarkCorpus.replay(position);
+    }
+
+    /** End-to-end: reset the global game and feed every move string through Chess.play. */
+    @Benchmark
+    public void playScript(Blackhole bh) {
+        Chess.start();
+        for (String move : moves) {
+            bh.consume(Chess.play(move));
+        }
+    }
+
+    /** Text parsing only. */
+    @Benchmark
+    public void parseScript(Blackhole bh) {
+        for (String move : moves) {
+            bh.consume(MoveParser.parse(move));
+        }
+    }
+
+    /** Validation and application of pre-parsed commands on a fresh game. */
+    @Benchmark
+    public void applyScript(Blackhole bh) {
+        Game fresh = new Game();
+        for (Command command : commands) {
+            bh.consume(fresh.apply(command));
+        }
+    }
+
+    @Benchmark
+    public List<Move> allLegalMoves() {
+        return game.legalMoves();
+    }
+
+    @Benchmark
+    public Board boardCopy() {
+        return game.board().copy();
+    }
+
+    @Benchmark
+    public List<Board.PieceOnSquare> boardPieces() {
+        return game.board().pieces();
+    }
+
+    @Benchmark
+    public ReturnPlay snapshot() {
+        return game.snapshotWithMessage(null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(GameBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
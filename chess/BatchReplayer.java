@@ -0,0 +1,94 @@
+package chess;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Validates many recorded games in parallel. Every game gets its own {@link Game} and is replayed
+ * move by move with {@link MoveParser#parsePacked} and {@link Game#apply}; games are spread across a
+ * fork-join pool and never touch the shared state behind {@link Chess}.
+ */
+public final class BatchReplayer {
+    private final ForkJoinPool pool;
+
+    /**
+     * Replayer using the common fork-join pool.
+     */
+    public BatchReplayer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Replayer using the supplied pool (e.g. {@code new ForkJoinPool(n)} to cap parallelism).
+     */
+    public BatchReplayer(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Outcome of one game: the message returned for the last move played, the zero-based index of
+     * the first move that was rejected (-1 if none), and how many moves were accepted.
+     * <p>
+     * Replay stops at the first rejected move. A game that is over (checkmate, stalemate,
+     * resignation or an accepted draw) before the transcript ends is invalid too: the first move
+     * after the end is reported as the first illegal one.
+     */
+    public record GameOutcome(ReturnPlay.Message finalMessage, int firstIllegalMove, int movesPlayed) {
+        public boolean isValid() {
+            return firstIllegalMove < 0;
+        }
+    }
+
+    /**
+     * Per-game outcomes in input order plus aggregate throughput.
+     */
+    public record BatchResult(List<GameOutcome> outcomes, long movesPlayed, long nanos) {
+        public double gamesPerSecond() {
+            return nanos == 0 ? 0.0 : outcomes.size() * 1_000_000_000.0 / nanos;
+        }
+
+        public double movesPerSecond() {
+            return nanos == 0 ? 0.0 : movesPlayed * 1_000_000_000.0 / nanos;
+        }
+    }
+
+    /**
+     * Replays every game in the stream (each a list of move lines such as "e2 e4") in parallel.
+     */
+    public BatchResult replay(Stream<List<String>> games) {
+        LongAdder moves = new LongAdder();
+        long start = System.nanoTime();
+        List<GameOutcome> outcomes = pool.submit(() -> games.parallel()
+                .map(game -> {
+                    GameOutcome outcome = replayGame(game);
+                    moves.add(outcome.movesPlayed());
+                    return outcome;
+                })
+                .collect(Collectors.toList()))
+            .join();
+        return new BatchResult(outcomes, moves.sum(), System.nanoTime() - start);
+    }
+
+    /**
+     * Replays a single game on the calling thread.
+     */
+    public static GameOutcome replayGame(List<String> moves) {
+        Game game = new Game();
+        ReturnPlay.Message last = null;
+        for (int i = 0; i < moves.size(); i++) {
+            ReturnPlay.Message message = game.apply(MoveParser.parsePacked(moves.get(i))).message;
+            if (message == ReturnPlay.Message.ILLEGAL_MOVE) {
+                return new GameOutcome(last, i, i);
+            }
+            last = message;
+            if (message != null && message != ReturnPlay.Message.CHECK) {
+                // Game over: any further line would be rejected.
+                return new GameOutcome(last, i + 1 < moves.size() ? i + 1 : -1, i + 1);
+            }
+        }
+        return new GameOutcome(last, -1, moves.size());
+    }
+}
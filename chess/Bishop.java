@@ -1,8 +1,5 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Bishop slides diagonally across the board until it encounters an obstacle.
  */
@@ -16,28 +13,28 @@ public final class Bishop extends Piece {
     }
 
     @Override
-    public List<Move> generatePseudoLegalMoves(PositionView position, Square from) {
-        List<Move> moves = new ArrayList<>(13);
+    public int generatePseudoLegalMoves(PositionView position, int from, int[] moves, int count) {
         for (int[] d : DIRECTIONS) {
-            collectSlidingMoves(position, from, moves, d[0], d[1]);
+            count = collectSlidingMoves(position, from, moves, count, d[0], d[1]);
         }
-        return moves;
+        return count;
     }
 
-    private void collectSlidingMoves(PositionView position, Square from, List<Move> moves, int df, int dr) {
-        int file = from.file() + df;
-        int rank = from.rank() + dr;
+    private int collectSlidingMoves(PositionView position, int from, int[] moves, int count, int df, int dr) {
+        int file = (from & 7) + df;
+        int rank = (from >>> 3) + dr;
         while (inBounds(file, rank)) {
             Piece occupant = position.pieceAt(file, rank);
             if (isFriendly(occupant)) {
-                return; // blocked by own piece
+                return count; // blocked by own piece
             }
-            moves.add(Move.of(from, square(file, rank)));
+            moves[count++] = PackedMove.of(from, index(file, rank));
             if (occupant != null) {
-                return; // captured an enemy; cannot go farther
+                return count; // captured an enemy; cannot go farther
             }
             file += df;
             rank += dr;
         }
+        return count;
     }
 }
@@ -0,0 +1,185 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Board variant that keeps one 64-bit occupancy mask per color/piece type pair alongside the
+ * square array inherited from {@link Board}.
+ * <p>
+ * Bit {@code n} of a mask corresponds to {@link Square#index()} {@code n} (a1 = bit 0, h8 = bit 63).
+ * The array is still used for {@link #pieceAt(int, int)} lookups. The masks answer the set-style
+ * queries (king location, occupancy, attacks) without walking the squares, and
+ * {@link LegalMoveGenerator} builds its moves from them instead of asking each piece.
+ */
+public final class BitBoard extends Board {
+    // Direction deltas in (file, rank); the first four are orthogonal, the last four diagonal.
+    private static final int[][] DIRECTIONS = {
+        {1, 0}, {-1, 0}, {0, 1}, {0, -1},
+        {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
+    };
+
+    static final long[] KNIGHT_ATTACKS = new long[64];
+    static final long[] KING_ATTACKS = new long[64];
+    static final long[][] PAWN_ATTACKS = new long[2][64]; // [color][square]: squares the pawn hits
+    static final long[][] RAYS = new long[8][64];          // [direction][square], excluding square
+
+    static {
+        int[][] knight = {{1, 2}, {2, 1}, {-1, 2}, {-2, 1}, {1, -2}, {2, -1}, {-1, -2}, {-2, -1}};
+        for (int sq = 0; sq < 64; sq++) {
+            int file = sq & 7;
+            int rank = sq >>> 3;
+            for (int[] d : knight) {
+                KNIGHT_ATTACKS[sq] |= bit(file + d[0], rank + d[1]);
+            }
+            for (int dir = 0; dir < 8; dir++) {
+                int df = DIRECTIONS[dir][0];
+                int dr = DIRECTIONS[dir][1];
+                KING_ATTACKS[sq] |= bit(file + df, rank + dr);
+                for (int f = file + df, r = rank + dr; f >= 0 && f < 8 && r >= 0 && r < 8; f += df, r += dr) {
+                    RAYS[dir][sq] |= bit(f, r);
+                }
+            }
+            PAWN_ATTACKS[Color.WHITE.ordinal()][sq] = bit(file - 1, rank + 1) | bit(file + 1, rank + 1);
+            PAWN_ATTACKS[Color.BLACK.ordinal()][sq] = bit(file - 1, rank - 1) | bit(file + 1, rank - 1);
+        }
+    }
+
+    private static long bit(int file, int rank) {
+        return (file >= 0 && file < 8 && rank >= 0 && rank < 8) ? 1L << ((rank << 3) | file) : 0L;
+    }
+
+    private final long[] pieceMasks = new long[12]; // indexed by maskIndex(color, type)
+    private final long[] colorMasks = new long[2];  // indexed by Color.ordinal()
+
+    public BitBoard() {
+    }
+
+    /**
+     * Index into the per-piece mask array: white pieces first, then black, in PieceType order.
+     */
+    static int maskIndex(Color color, PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        Arrays.fill(pieceMasks, 0L);
+        Arrays.fill(colorMasks, 0L);
+    }
+
+    @Override
+    public void setPiece(int index, Piece piece) {
+        Piece previous = pieceOn(index);
+        if (previous != null) {
+            clearBit(previous, index);
+        }
+        super.setPiece(index, piece);
+        if (piece != null) {
+            long bit = 1L << index;
+            pieceMasks[maskIndex(piece.color(), piece.type())] |= bit;
+            colorMasks[piece.color().ordinal()] |= bit;
+        }
+    }
+
+    @Override
+    public Piece removePiece(int index) {
+        Piece removed = super.removePiece(index);
+        if (removed != null) {
+            clearBit(removed, index);
+        }
+        return removed;
+    }
+
+    private void clearBit(Piece piece, int index) {
+        long keep = ~(1L << index);
+        pieceMasks[maskIndex(piece.color(), piece.type())] &= keep;
+        colorMasks[piece.color().ordinal()] &= keep;
+    }
+
+    @Override
+    public int kingIndex(Color side) {
+        long kings = pieceMasks[maskIndex(side, PieceType.KING)];
+        return kings == 0 ? -1 : Long.numberOfTrailingZeros(kings);
+    }
+
+    /**
+     * Mask-based reverse attack test: each attacker set is intersected with the attack pattern of
+     * the target square, and each ray stops at its nearest blocker.
+     */
+    @Override
+    public boolean isSquareAttacked(int sq, Color by) {
+        int side = by.ordinal() * 6;
+        if ((PAWN_ATTACKS[by.opposite().ordinal()][sq] & pieceMasks[side + PieceType.PAWN.ordinal()]) != 0
+                || (KNIGHT_ATTACKS[sq] & pieceMasks[side + PieceType.KNIGHT.ordinal()]) != 0
+                || (KING_ATTACKS[sq] & pieceMasks[side + PieceType.KING.ordinal()]) != 0) {
+            return true;
+        }
+        long queens = pieceMasks[side + PieceType.QUEEN.ordinal()];
+        long straight = pieceMasks[side + PieceType.ROOK.ordinal()] | queens;
+        long diagonal = pieceMasks[side + PieceType.BISHOP.ordinal()] | queens;
+        long occupied = occupied();
+        for (int dir = 0; dir < 8; dir++) {
+            long sliders = dir < 4 ? straight : diagonal;
+            if (sliders == 0) {
+                continue;
+            }
+            long blockers = RAYS[dir][sq] & occupied;
+            if (blockers != 0 && (nearest(dir, blockers) & sliders) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Picks the blocker closest to the ray origin. Rays that increase the square index find it at
+     * the lowest set bit; rays that decrease it find it at the highest.
+     */
+    static long nearest(int dir, long blockers) {
+        int df = DIRECTIONS[dir][0];
+        int dr = DIRECTIONS[dir][1];
+        boolean increasing = dr > 0 || (dr == 0 && df > 0);
+        return increasing ? Long.lowestOneBit(blockers) : Long.highestOneBit(blockers);
+    }
+
+    /**
+     * Squares a slider on {@code sq} reaches along direction {@code dir}: the ray up to and
+     * including its nearest blocker in {@code occupied}.
+     */
+    static long rayAttacks(int dir, int sq, long occupied) {
+        long ray = RAYS[dir][sq];
+        long blockers = ray & occupied;
+        return blockers == 0 ? ray : ray & ~RAYS[dir][Long.numberOfTrailingZeros(nearest(dir, blockers))];
+    }
+
+    @Override
+    public BitBoard copy() {
+        BitBoard clone = new BitBoard();
+        copyInto(clone);
+        System.arraycopy(pieceMasks, 0, clone.pieceMasks, 0, pieceMasks.length);
+        System.arraycopy(colorMasks, 0, clone.colorMasks, 0, colorMasks.length);
+        return clone;
+    }
+
+    /**
+     * Mask of every square holding a piece of the given color and type.
+     */
+    public long pieces(Color color, PieceType type) {
+        return pieceMasks[maskIndex(color, type)];
+    }
+
+    /**
+     * Mask of every square holding a piece of the given color.
+     */
+    public long occupancy(Color color) {
+        return colorMasks[color.ordinal()];
+    }
+
+    /**
+     * Mask of every occupied square.
+     */
+    public long occupied() {
+        return colorMasks[0] | colorMasks[1];
+    }
+}
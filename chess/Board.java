@@ -1,14 +1,43 @@
 package chess;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Backing store for the 8x8 chess board. Provides both mutation helpers for the Game engine and a
  * read-only {@link Piece.PositionView} so pieces can generate moves.
+ * <p>
+ * This is the plain array ("mailbox") implementation; {@link BitBoard} layers occupancy masks on
+ * top of it and overrides the queries that benefit from bit operations.
  */
-public final class Board implements Piece.PositionView {
-    private final Piece[][] squares = new Piece[8][8];
+public class Board implements Piece.PositionView {
+    private static final int[][] KNIGHT_DELTAS = {
+        {1, 2}, {2, 1}, {-1, 2}, {-2, 1},
+        {1, -2}, {2, -1}, {-1, -2}, {-2, -1}
+    };
+    private static final int[][] KING_DELTAS = {
+        {1, 0}, {-1, 0}, {0, 1}, {0, -1},
+        {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
+    };
+    private static final int[][] ORTHOGONAL = {
+        {1, 0}, {-1, 0}, {0, 1}, {0, -1}
+    };
+    private static final int[][] DIAGONAL = {
+        {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
+    };
+
+    private final Piece[] squares = new Piece[64]; // indexed by Square.index()
+    private long zobristKey = 0L;                   // XOR of Zobrist.piece() for every occupant
+    private int mgScore = 0;                        // sums of Evaluation.mg()/eg() for every occupant
+    private int egScore = 0;
+    private int phase = 0;                          // sum of Evaluation.phase() for every occupant
+
+    // Undo stack for makeMove/unmakeMove, stored as parallel arrays so pushing allocates nothing.
+    private int[] undoMove = new int[64];
+    private Piece[] undoMoved = new Piece[64];
+    private Piece[] undoCaptured = new Piece[64];
+    private int undoDepth = 0;
 
     public Board() {
     }
@@ -17,36 +46,136 @@ public final class Board implements Piece.PositionView {
      * Clears the board entirely.
      */
     public void clear() {
-        for (int file = 0; file < 8; file++) {
-            for (int rank = 0; rank < 8; rank++) {
-                squares[file][rank] = null;
-            }
-        }
+        Arrays.fill(squares, null);
+        zobristKey = 0L;
+        mgScore = 0;
+        egScore = 0;
+        phase = 0;
     }
 
     /**
      * Places a piece on the given square.
      */
     public void setPiece(Square square, Piece piece) {
-        squares[square.file()][square.rank()] = piece;
+        setPiece(square.index(), piece);
+    }
+
+    /**
+     * Places a piece on the square with the given {@link Square#index()}. Subclasses that keep
+     * derived state override this index form; the {@link Square} overloads delegate to it.
+     */
+    public void setPiece(int index, Piece piece) {
+        Piece previous = squares[index];
+        if (previous != null) {
+            lift(previous, index);
+        }
+        squares[index] = piece;
+        if (piece != null) {
+            zobristKey ^= Zobrist.piece(piece, index);
+            mgScore += Evaluation.mg(piece, index);
+            egScore += Evaluation.eg(piece, index);
+            phase += Evaluation.phase(piece);
+        }
     }
 
     /**
      * Removes and returns the piece at the given square, or null if empty.
      */
     public Piece removePiece(Square square) {
-        int file = square.file();
-        int rank = square.rank();
-        Piece removed = squares[file][rank];
-        squares[file][rank] = null;
+        return removePiece(square.index());
+    }
+
+    /**
+     * Index form of {@link #removePiece(Square)}.
+     */
+    public Piece removePiece(int index) {
+        Piece removed = squares[index];
+        if (removed != null) {
+            squares[index] = null;
+            lift(removed, index);
+        }
         return removed;
     }
 
+    /** Takes a departing occupant out of the incrementally maintained key and evaluation. */
+    private void lift(Piece piece, int index) {
+        zobristKey ^= Zobrist.piece(piece, index);
+        mgScore -= Evaluation.mg(piece, index);
+        egScore -= Evaluation.eg(piece, index);
+        phase -= Evaluation.phase(piece);
+    }
+
+    /**
+     * Plays a move in place (capturing whatever is on the destination and promoting if the move
+     * asks for it) and records an undo entry. No legality checks are performed.
+     */
+    public void makeMove(Move move) {
+        makeMove(PackedMove.of(move));
+    }
+
+    /**
+     * Packed form of {@link #makeMove(Move)}; see {@link PackedMove} for the encoding.
+     */
+    public void makeMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        Piece captured = removePiece(to);
+        Piece moved = removePiece(from);
+        Piece placed = moved;
+        if (PackedMove.isPromotion(move) && moved.type() == PieceType.PAWN) {
+            placed = Piece.of(moved.color(), PackedMove.promotion(move));
+        }
+        setPiece(to, placed);
+
+        if (undoDepth == undoMove.length) {
+            growUndoStack();
+        }
+        undoMove[undoDepth] = move;
+        undoMoved[undoDepth] = moved;
+        undoCaptured[undoDepth] = captured;
+        undoDepth++;
+    }
+
+    /**
+     * Reverts the most recent {@link #makeMove(int)}, restoring the moved and captured pieces.
+     */
+    public void unmakeMove() {
+        if (undoDepth == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+        undoDepth--;
+        int move = undoMove[undoDepth];
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        removePiece(to);
+        setPiece(from, undoMoved[undoDepth]);
+        Piece captured = undoCaptured[undoDepth];
+        if (captured != null) {
+            setPiece(to, captured);
+        }
+        undoMoved[undoDepth] = null;
+        undoCaptured[undoDepth] = null;
+    }
+
+    private void growUndoStack() {
+        int size = undoMove.length * 2;
+        undoMove = Arrays.copyOf(undoMove, size);
+        undoMoved = Arrays.copyOf(undoMoved, size);
+        undoCaptured = Arrays.copyOf(undoCaptured, size);
+    }
+
     /**
      * Returns the piece at the given square, or null if empty.
      */
     public Piece getPiece(Square square) {
-        return squares[square.file()][square.rank()];
+        return squares[square.index()];
+    }
+
+    /**
+     * Returns the piece on the square with the given {@link Square#index()}, or null if empty.
+     */
+    public Piece pieceOn(int index) {
+        return squares[index];
     }
 
     @Override
@@ -54,20 +183,134 @@ public final class Board implements Piece.PositionView {
         if (file < 0 || file >= 8 || rank < 0 || rank >= 8) {
             return null;
         }
-        return squares[file][rank];
+        return squares[(rank << 3) | file];
     }
 
     /**
-     * Creates a shallow copy of the board state (pieces are not cloned) for simulation.
+     * Creates a shallow copy of the board state (pieces are not cloned). The undo stack is not
+     * copied, so the clone starts with nothing to unmake.
      */
     public Board copy() {
         Board clone = new Board();
-        for (int file = 0; file < 8; file++) {
-            System.arraycopy(squares[file], 0, clone.squares[file], 0, 8);
-        }
+        copyInto(clone);
         return clone;
     }
 
+    /**
+     * Copies the square contents into another board. Subclasses use this from their own copy().
+     */
+    protected void copyInto(Board target) {
+        System.arraycopy(squares, 0, target.squares, 0, 64);
+        target.zobristKey = zobristKey;
+        target.mgScore = mgScore;
+        target.egScore = egScore;
+        target.phase = phase;
+    }
+
+    /**
+     * Zobrist hash of the piece placement, maintained incrementally by setPiece/removePiece. It
+     * does not include the side to move; see {@link Game#positionKey()}.
+     */
+    public long zobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * Static evaluation in centipawns from White's point of view: material plus piece-square
+     * values, blended between middlegame and endgame by the material left. Maintained by
+     * setPiece/removePiece like {@link #zobristKey()}, so this is O(1).
+     */
+    public int evaluate() {
+        return Evaluation.taper(mgScore, egScore, phase);
+    }
+
+    /**
+     * Locates the king of the given side, or returns null if it is not on the board.
+     */
+    public Square findKing(Color side) {
+        int index = kingIndex(side);
+        return index < 0 ? null : Square.ofIndex(index);
+    }
+
+    /**
+     * Index form of {@link #findKing(Color)}; returns -1 when the king is missing.
+     */
+    public int kingIndex(Color side) {
+        for (int index = 0; index < 64; index++) {
+            Piece piece = squares[index];
+            if (piece != null && piece.type() == PieceType.KING && piece.color() == side) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reports whether any piece of the given color attacks the target square. Works backwards from
+     * the target (pawn diagonals, knight jumps, king neighbours, then sliding rays) and stops at the
+     * first attacker found, so no moves are generated.
+     */
+    public boolean isSquareAttacked(Square target, Color by) {
+        return isSquareAttacked(target.index(), by);
+    }
+
+    /**
+     * Index form of {@link #isSquareAttacked(Square, Color)}.
+     */
+    public boolean isSquareAttacked(int target, Color by) {
+        int file = target & 7;
+        int rank = target >>> 3;
+        // An attacking pawn sits one rank "behind" the target from its own point of view.
+        int pawnRank = by == Color.WHITE ? rank - 1 : rank + 1;
+        if (holds(file - 1, pawnRank, by, PieceType.PAWN) || holds(file + 1, pawnRank, by, PieceType.PAWN)) {
+            return true;
+        }
+        for (int[] d : KNIGHT_DELTAS) {
+            if (holds(file + d[0], rank + d[1], by, PieceType.KNIGHT)) {
+                return true;
+            }
+        }
+        for (int[] d : KING_DELTAS) {
+            if (holds(file + d[0], rank + d[1], by, PieceType.KING)) {
+                return true;
+            }
+        }
+        for (int[] d : ORTHOGONAL) {
+            Piece first = firstOnRay(file, rank, d[0], d[1]);
+            if (first != null && first.color() == by
+                    && (first.type() == PieceType.ROOK || first.type() == PieceType.QUEEN)) {
+                return true;
+            }
+        }
+        for (int[] d : DIAGONAL) {
+            Piece first = firstOnRay(file, rank, d[0], d[1]);
+            if (first != null && first.color() == by
+                    && (first.type() == PieceType.BISHOP || first.type() == PieceType.QUEEN)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean holds(int file, int rank, Color color, PieceType type) {
+        Piece piece = pieceAt(file, rank);
+        return piece != null && piece.color() == color && piece.type() == type;
+    }
+
+    private Piece firstOnRay(int file, int rank, int df, int dr) {
+        file += df;
+        rank += dr;
+        while (file >= 0 && file < 8 && rank >= 0 && rank < 8) {
+            Piece piece = squares[(rank << 3) | file];
+            if (piece != null) {
+                return piece;
+            }
+            file += df;
+            rank += dr;
+        }
+        return null;
+    }
+
     /**
      * Lists all pieces currently on the board.
      */
@@ -75,7 +318,7 @@ public final class Board implements Piece.PositionView {
         List<PieceOnSquare> list = new ArrayList<>();
         for (int file = 0; file < 8; file++) {
             for (int rank = 0; rank < 8; rank++) {
-                Piece piece = squares[file][rank];
+                Piece piece = squares[(rank << 3) | file];
                 if (piece != null) {
                     list.add(new PieceOnSquare(Square.of(file, rank), piece));
                 }
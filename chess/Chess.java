@@ -4,7 +4,7 @@ public class Chess {
 
     enum Player { white, black }
 
-    private static Game currentGame = new Game();
+    private static final GameRegistry registry = new GameRegistry();
 
     /**
      * Plays the next move for whichever player has the turn.
@@ -14,25 +14,13 @@ public class Chess {
      * @return A ReturnPlay instance that contains the result of the move.
      */
     public static ReturnPlay play(String move) {
-        ensureGame();
-        try {
-            Command command = MoveParser.parse(move);
-            return currentGame.apply(command);
-        } catch (IllegalArgumentException ex) {
-            return currentGame.snapshotWithMessage(ReturnPlay.Message.ILLEGAL_MOVE);
-        }
+        return registry.play(GameRegistry.DEFAULT_SESSION, move);
     }
 
     /**
      * This method should reset the game, and start from scratch.
      */
     public static void start() {
-        currentGame = new Game();
-    }
-
-    private static void ensureGame() {
-        if (currentGame == null) {
-            currentGame = new Game();
-        }
+        registry.reset(GameRegistry.DEFAULT_SESSION);
     }
 }
@@ -0,0 +1,451 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking TCP server speaking the {@link PlayChess} line protocol, with one {@link Game} per
+ * connection.
+ * <p>
+ * Each line a client sends gets exactly the output the console would print: {@code reset} starts
+ * the connection's game over and answers with an empty line, {@code quit} closes the connection
+ * once earlier replies are sent, and anything else is played as a move and answered with the
+ * optional message and the board. Lines end as for the console's {@link java.util.Scanner}
+ * ({@code \n}, {@code \r\n} or {@code \r}), and input is read as ASCII: moves are parsed straight
+ * from the received bytes with {@link MoveParser#parsePacked}, with no String per line.
+ * <p>
+ * A few event-loop threads each run a {@link Selector} over their share of the connections; the
+ * first loop also accepts and hands new connections out round-robin. Every loop reads into and
+ * encodes replies into its own pair of direct buffers, so an idle connection holds only its game
+ * and a small line buffer. A connection whose client stops reading is paused: its unsent reply
+ * is kept and its input is left in the socket until the reply drains.
+ */
+public final class ChessServer implements Closeable {
+
+    private static final int BUFFER_BYTES = 1 << 16;
+    /** Upper bound on one encoded reply (message plus board), so a reply always fits. */
+    private static final int MAX_REPLY_BYTES = 512;
+    /** Longest accepted line; a client sending more without a newline is disconnected. */
+    private static final int MAX_LINE_BYTES = 1024;
+    /** How long to stop accepting after accept() fails, e.g. at the open file limit. */
+    private static final long ACCEPT_BACKOFF_MILLIS = 100;
+
+    private static final byte[] QUIT = "quit".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RESET = "reset".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FILES = " a  b  c  d  e  f  g  h\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final ServerSocketChannel server;
+    private final EventLoop[] loops;
+    private final AtomicInteger connections = new AtomicInteger();
+    private volatile boolean closed;
+
+    private ChessServer(ServerSocketChannel server, int eventLoops) throws IOException {
+        this.server = server;
+        this.loops = new EventLoop[eventLoops];
+        for (int i = 0; i < eventLoops; i++) {
+            loops[i] = new EventLoop(i);
+        }
+    }
+
+    /**
+     * Binds to {@code address} (port 0 picks a free port) and starts {@code eventLoops} daemon
+     * threads serving connections.
+     *
+     * @throws IllegalArgumentException if {@code eventLoops} is less than 1.
+     */
+    public static ChessServer start(InetSocketAddress address, int eventLoops) throws IOException {
+        if (eventLoops < 1) {
+            throw new IllegalArgumentException("eventLoops must be at least 1: " + eventLoops);
+        }
+        ServerSocketChannel server = ServerSocketChannel.open();
+        try {
+            server.bind(address, 1024);
+            server.configureBlocking(false);
+            ChessServer chess = new ChessServer(server, eventLoops);
+            server.register(chess.loops[0].selector, SelectionKey.OP_ACCEPT);
+            for (EventLoop loop : chess.loops) {
+                loop.thread.start();
+            }
+            return chess;
+        } catch (IOException | RuntimeException e) {
+            server.close();
+            throw e;
+        }
+    }
+
+    /** Address the server is listening on. */
+    public InetSocketAddress address() throws IOException {
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    /** Number of currently open connections. */
+    public int connections() {
+        return connections.get();
+    }
+
+    /**
+     * Stops the event loops and closes the listening socket and every connection.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (EventLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+        for (EventLoop loop : loops) {
+            try {
+                loop.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        server.close();
+    }
+
+    /** Per-connection state: the game, the unfinished input line, and any reply not yet sent. */
+    private static final class Connection {
+        Game game = new Game();
+        byte[] line = new byte[64]; // received input not yet answered
+        int lineLength;
+        boolean afterCr; // the last line ended with \r, so a following \n is part of it
+        ByteBuffer pending; // non-null while the client is not keeping up
+        boolean quit;
+    }
+
+    private final class EventLoop implements Runnable {
+        final Selector selector;
+        final Thread thread;
+        final Queue<SocketChannel> handoff = new ConcurrentLinkedQueue<>();
+        final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        final AsciiLine view = new AsciiLine();
+        private int nextLoop;
+        private SelectionKey pausedAccept; // set while backing off after a failed accept()
+
+        EventLoop(int id) throws IOException {
+            selector = Selector.open();
+            thread = new Thread(this, "chess-server-" + id);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!closed) {
+                    if (pausedAccept == null) {
+                        selector.select();
+                    } else {
+                        selector.select(ACCEPT_BACKOFF_MILLIS);
+                        pausedAccept.interestOps(SelectionKey.OP_ACCEPT);
+                        pausedAccept = null;
+                    }
+                    register();
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        if (!key.isValid()) continue;
+                        if (key.isAcceptable()) {
+                            accept(key);
+                        } else {
+                            serve(key);
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (!closed) {
+                    e.printStackTrace();
+                }
+            } finally {
+                SocketChannel waiting;
+                while ((waiting = handoff.poll()) != null) {
+                    close(waiting);
+                }
+                for (SelectionKey key : selector.keys()) {
+                    if (key.channel() instanceof SocketChannel) {
+                        disconnect(key);
+                    }
+                }
+                try {
+                    selector.close();
+                } catch (IOException ignored) {
+                    // shutting down anyway
+                }
+            }
+        }
+
+        private void accept(SelectionKey key) {
+            while (true) {
+                SocketChannel channel;
+                try {
+                    channel = server.accept();
+                } catch (IOException e) {
+                    // Typically out of file descriptors: pending clients wait in the backlog.
+                    key.interestOps(0);
+                    pausedAccept = key;
+                    return;
+                }
+                if (channel == null) {
+                    return;
+                }
+                connections.incrementAndGet();
+                try {
+                    channel.configureBlocking(false);
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                } catch (IOException e) {
+                    close(channel);
+                    continue;
+                }
+                EventLoop target = loops[nextLoop];
+                nextLoop = (nextLoop + 1) % loops.length;
+                target.handoff.add(channel);
+                target.selector.wakeup(); // also for this loop, which registers it after the next select
+            }
+        }
+
+        private void register() {
+            SocketChannel channel;
+            while ((channel = handoff.poll()) != null) {
+                try {
+                    channel.register(selector, SelectionKey.OP_READ, new Connection());
+                } catch (IOException e) {
+                    close(channel);
+                }
+            }
+        }
+
+        private void serve(SelectionKey key) {
+            SocketChannel channel = (SocketChannel) key.channel();
+            Connection conn = (Connection) key.attachment();
+            try {
+                if (key.isWritable()) {
+                    channel.write(conn.pending);
+                    if (conn.pending.hasRemaining()) {
+                        return;
+                    }
+                    conn.pending = null;
+                    if (conn.quit) {
+                        disconnect(key);
+                        return;
+                    }
+                    key.interestOps(SelectionKey.OP_READ);
+                    if (!processLines(key, channel, conn)) return; // lines read before the pause
+                }
+                if (key.isReadable()) {
+                    in.clear();
+                    int n = channel.read(in);
+                    if (n < 0) {
+                        disconnect(key);
+                        return;
+                    }
+                    in.flip();
+                    if (conn.line.length - conn.lineLength < n) {
+                        conn.line = Arrays.copyOf(conn.line, Math.max(conn.lineLength + n, conn.line.length * 2));
+                    }
+                    in.get(conn.line, conn.lineLength, n);
+                    conn.lineLength += n;
+                    processLines(key, channel, conn);
+                }
+            } catch (IOException | IllegalStateException e) {
+                disconnect(key); // reset by the peer, or a line too long
+            }
+        }
+
+        /**
+         * Answers every complete line buffered for the connection, then sends the replies. Lines end
+         * at \n, \r or \r\n, as for {@link java.util.Scanner#nextLine()}. Returns false if the
+         * connection was closed or paused.
+         *
+         * @throws IllegalStateException if the unfinished last line is too long.
+         */
+        private boolean processLines(SelectionKey key, SocketChannel channel, Connection conn) throws IOException {
+            out.clear();
+            int start = 0;
+            for (int i = 0; i < conn.lineLength; i++) {
+                byte b = conn.line[i];
+                if (b == '\n' && conn.afterCr && i == start) {
+                    start = i + 1; // second half of \r\n
+                    conn.afterCr = false;
+                    continue;
+                }
+                conn.afterCr = false;
+                if (b != '\n' && b != '\r') continue;
+                conn.afterCr = b == '\r';
+                if (!answer(conn, conn.line, start, i)) {
+                    conn.quit = true;
+                    start = conn.lineLength; // ignore anything after quit
+                    break;
+                }
+                start = i + 1;
+                if (out.remaining() < MAX_REPLY_BYTES && !flush(key, channel, conn)) {
+                    break;
+                }
+            }
+            System.arraycopy(conn.line, start, conn.line, 0, conn.lineLength - start);
+            conn.lineLength -= start;
+            if (conn.pending != null || !flush(key, channel, conn)) {
+                return false;
+            }
+            if (conn.lineLength > MAX_LINE_BYTES) {
+                throw new IllegalStateException("line too long");
+            }
+            if (conn.line.length > 4 * MAX_LINE_BYTES && conn.lineLength < 64) {
+                conn.line = Arrays.copyOf(conn.line, 64); // give back a burst's worth of input
+            }
+            if (conn.quit) {
+                disconnect(key);
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Writes the encoded replies. If the socket does not take them all, keeps the rest and
+         * waits for it to become writable, and returns false.
+         */
+        private boolean flush(SelectionKey key, SocketChannel channel, Connection conn) throws IOException {
+            out.flip();
+            channel.write(out);
+            if (out.hasRemaining()) {
+                conn.pending = ByteBuffer.allocate(out.remaining()).put(out).flip();
+                key.interestOps(SelectionKey.OP_WRITE);
+                out.clear();
+                return false;
+            }
+            out.clear();
+            return true;
+        }
+
+        /** Encodes the reply to one line into {@link #out}; returns false for {@code quit}. */
+        private boolean answer(Connection conn, byte[] line, int from, int to) {
+            if (equals(line, from, to, QUIT)) {
+                return false;
+            }
+            if (equals(line, from, to, RESET)) {
+                conn.game = new Game();
+                out.put((byte) '\n');
+                return true;
+            }
+            ReturnPlay.Message message = conn.game.applyMessage(MoveParser.parsePacked(view.of(line, from, to)));
+            if (message != null) {
+                out.put((byte) '\n');
+                putAscii(message.name());
+                out.put((byte) '\n');
+            }
+            out.put((byte) '\n');
+            putBoard(conn.game);
+            out.put((byte) '\n');
+            return true;
+        }
+
+        /** Same layout as {@link PlayChess#printBoard}. */
+        private void putBoard(Game game) {
+            for (int rank = 7; rank >= 0; rank--) {
+                for (int file = 0; file < 8; file++) {
+                    Piece piece = game.pieceOn((rank << 3) | file);
+                    if (piece == null) {
+                        byte shade = (byte) (((rank + file) & 1) == 0 ? '#' : ' ');
+                        out.put(shade).put(shade);
+                    } else {
+                        char type = piece.type().algebraicSymbol();
+                        out.put((byte) (piece.color() == Color.WHITE ? 'w' : 'b'))
+                           .put((byte) (type == 'P' ? 'p' : type));
+                    }
+                    out.put((byte) ' ');
+                }
+                out.put((byte) ('1' + rank)).put((byte) '\n');
+            }
+            out.put(FILES);
+        }
+
+        private void putAscii(String s) {
+            for (int i = 0; i < s.length(); i++) {
+                out.put((byte) s.charAt(i));
+            }
+        }
+
+        private void disconnect(SelectionKey key) {
+            if (key.isValid()) {
+                key.cancel();
+                close((SocketChannel) key.channel());
+            }
+        }
+
+        private void close(SocketChannel channel) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // already gone
+            }
+            connections.decrementAndGet();
+        }
+
+        private static boolean equals(byte[] line, int from, int to, byte[] word) {
+            return to - from == word.length && Arrays.equals(line, from, to, word, 0, word.length);
+        }
+    }
+
+    /**
+     * Reusable {@link CharSequence} over a range of ASCII bytes, so lines can be parsed without
+     * decoding them into a String.
+     */
+    private static final class AsciiLine implements CharSequence {
+        private byte[] bytes;
+        private int from;
+        private int length;
+
+        AsciiLine of(byte[] bytes, int from, int to) {
+            this.bytes = bytes;
+            this.from = from;
+            this.length = to - from;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[from + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, from, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /**
+     * Usage: {@code java chess.ChessServer [port] [eventLoops]}, by default port 8765 and one loop
+     * per available processor. Try it with e.g. {@code nc localhost 8765}.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8765;
+        int eventLoops = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        ChessServer server = start(new InetSocketAddress(port), eventLoops);
+        System.out.println("Listening on " + server.address() + " with " + eventLoops + " event loops");
+        Thread.currentThread().join();
+    }
+}
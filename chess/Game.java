@@ -1,7 +1,10 @@
 package chess;
 
 import java.util.ArrayList;
-import java.util.List;;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Central rules engine:
@@ -14,14 +17,213 @@ import java.util.List;;
  */
 public class Game {
 
-    private final Board board = new Board();
+    /**
+     * Room a caller-supplied buffer needs past its offset for {@link #legalMoves(int[], int)}: the
+     * legal move maximum (218 in any reachable position) plus one piece's worth of staging space.
+     */
+    public static final int MAX_MOVES = 256;
+
+    private final Board board;
+    private int[] moveBuffer = new int[MAX_MOVES * 8]; // reused per ply; grows for deep perft
+    private final LegalMoveGenerator generator = new LegalMoveGenerator();
     private Color toMove = Color.WHITE;
     private boolean gameOver = false;
+    private int halfmoveClock = 0;  // plies since the last capture or pawn move (FEN field 5)
+    private int fullmoveNumber = 1; // incremented after each Black move (FEN field 6)
+    private int[] history = new int[64]; // PackedMove ints applied since the game started
+    private int historyLength = 0;
+
+    // ReturnPiece per square for the applied position (moves simulated during legality checks are
+    // always undone and never reach it). Entries are replaced, never mutated, so snapshots already
+    // handed to callers stay valid. The last* fields describe what the latest applied move changed.
+    private static final ReturnPiece.PieceFile[] FILES = ReturnPiece.PieceFile.values();
+    private final ReturnPiece[] returnPieces = new ReturnPiece[64];
+    private int returnPieceCount = 0;
+    private ReturnPiece lastMovedOut;
+    private ReturnPiece lastCaptured;
+    private ReturnPiece lastMovedIn;
 
     public Game() {
+        this(new Board());
+    }
+
+    /**
+     * Starts a game on the supplied board implementation (e.g. {@link BitBoard}). Any pieces already
+     * on the board are cleared and replaced with the initial position.
+     */
+    public Game(Board board) {
+        this.board = board;
         setupInitial();
     }
 
+    /** Wraps a board whose position the caller (e.g. the FEN parser) fills in. */
+    private Game(Board board, boolean setup) {
+        this.board = board;
+        if (setup) {
+            setupInitial();
+        }
+    }
+
+    /**
+     * Loads a position from Forsyth-Edwards Notation onto a plain {@link Board}.
+     *
+     * @throws IllegalArgumentException if the FEN is malformed or either king is missing.
+     */
+    public static Game fromFen(CharSequence fen) {
+        return fromFen(fen, new Board());
+    }
+
+    /**
+     * Loads a position from FEN onto the supplied (cleared) board. The parser walks the characters
+     * directly; no regex, split or substring is involved. Castling and en passant fields are
+     * accepted but ignored because the engine implements neither. The move counters are optional.
+     *
+     * @throws IllegalArgumentException if the FEN is malformed or either king is missing.
+     */
+    public static Game fromFen(CharSequence fen, Board board) {
+        Game game = new Game(board, false);
+        board.clear();
+        int length = fen.length();
+        int i = 0;
+
+        // 1. Piece placement, rank 8 down to rank 1.
+        int rank = 7;
+        int file = 0;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (file != 8 || rank == 0) throw new IllegalArgumentException("Bad FEN rank layout: " + fen);
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+                if (file > 8) throw new IllegalArgumentException("Bad FEN rank layout: " + fen);
+            } else {
+                PieceType type = fenType(Character.toUpperCase(c));
+                if (type == null || file > 7) throw new IllegalArgumentException("Bad FEN piece '" + c + "': " + fen);
+                Color color = Character.isUpperCase(c) ? Color.WHITE : Color.BLACK;
+                board.setPiece((rank << 3) | file, Piece.of(color, type));
+                file++;
+            }
+        }
+        if (rank != 0 || file != 8) throw new IllegalArgumentException("Bad FEN rank layout: " + fen);
+
+        // 2. Side to move.
+        i = skipSpaces(fen, i);
+        if (i >= length) throw new IllegalArgumentException("FEN is missing the side to move: " + fen);
+        char side = fen.charAt(i++);
+        if (side == 'w') game.toMove = Color.WHITE;
+        else if (side == 'b') game.toMove = Color.BLACK;
+        else throw new IllegalArgumentException("Bad FEN side to move '" + side + "': " + fen);
+
+        // 3-4. Castling rights and en passant target: not modelled, skipped.
+        i = skipField(fen, skipSpaces(fen, i));
+        i = skipField(fen, skipSpaces(fen, i));
+
+        // 5-6. Optional move counters.
+        i = skipSpaces(fen, i);
+        if (i < length) {
+            game.halfmoveClock = parseCounter(fen, i);
+            i = skipSpaces(fen, skipField(fen, i));
+            if (i < length) {
+                game.fullmoveNumber = parseCounter(fen, i);
+            }
+        }
+
+        if (board.kingIndex(Color.WHITE) < 0 || board.kingIndex(Color.BLACK) < 0) {
+            throw new IllegalArgumentException("FEN must place both kings: " + fen);
+        }
+        game.rebuildReturnPieces();
+        return game;
+    }
+
+    /**
+     * Independent copy of the current position, side to move and counters on the same board
+     * implementation, e.g. one per search thread. Moves the copy later makes do not affect this game.
+     */
+    public Game copy() {
+        Game copy = new Game(board.copy(), false);
+        copy.toMove = toMove;
+        copy.gameOver = gameOver;
+        copy.halfmoveClock = halfmoveClock;
+        copy.fullmoveNumber = fullmoveNumber;
+        copy.history = Arrays.copyOf(history, history.length);
+        copy.historyLength = historyLength;
+        copy.rebuildReturnPieces();
+        return copy;
+    }
+
+    /**
+     * Appends the current position as FEN to {@code out} and returns it. Castling and en passant are
+     * always written as "-".
+     */
+    public StringBuilder toFen(StringBuilder out) {
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                Piece p = board.pieceOn((rank << 3) | file);
+                if (p == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char symbol = p.type().algebraicSymbol();
+                out.append(p.color() == Color.WHITE ? symbol : Character.toLowerCase(symbol));
+            }
+            if (empty > 0) out.append((char) ('0' + empty));
+            if (rank > 0) out.append('/');
+        }
+        out.append(' ').append(toMove == Color.WHITE ? 'w' : 'b')
+           .append(" - - ").append(halfmoveClock).append(' ').append(fullmoveNumber);
+        return out;
+    }
+
+    /** Convenience form of {@link #toFen(StringBuilder)}. */
+    public String toFen() {
+        return toFen(new StringBuilder(90)).toString();
+    }
+
+    private static PieceType fenType(char upper) {
+        return switch (upper) {
+            case 'K' -> PieceType.KING;
+            case 'Q' -> PieceType.QUEEN;
+            case 'R' -> PieceType.ROOK;
+            case 'B' -> PieceType.BISHOP;
+            case 'N' -> PieceType.KNIGHT;
+            case 'P' -> PieceType.PAWN;
+            default -> null;
+        };
+    }
+
+    private static int skipSpaces(CharSequence s, int i) {
+        while (i < s.length() && s.charAt(i) == ' ') i++;
+        return i;
+    }
+
+    private static int skipField(CharSequence s, int i) {
+        while (i < s.length() && s.charAt(i) != ' ') i++;
+        return i;
+    }
+
+    private static int parseCounter(CharSequence s, int i) {
+        int value = 0;
+        int start = i;
+        for (; i < s.length() && s.charAt(i) != ' '; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9' || i - start > 6) throw new IllegalArgumentException("Bad FEN move counter: " + s);
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /** Exposes the backing board to same-package tooling (benchmarks, snapshots). */
+    Board board() {
+        return board;
+    }
+
     /** Set up the initial chess position. */
     private void setupInitial() {
         board.clear();
@@ -60,53 +262,80 @@ public class Game {
 
         toMove = Color.WHITE;
         gameOver = false;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        rebuildReturnPieces();
     }
 
     /** Applies a parsed command to the current position and returns the board snapshot + message. */
     public ReturnPlay apply(Command command) {
-        if (gameOver) {
-            return snapshotWithMessage(ReturnPlay.Message.ILLEGAL_MOVE);
+        if (command instanceof Command.ResignCommand) {
+            return apply(MoveParser.RESIGN);
+        }
+        if (command instanceof Command.MoveWithDrawOffer m) {
+            return apply(PackedMove.of(m.move()) | MoveParser.DRAW_OFFER);
+        }
+        if (command instanceof Command.MoveCommand m) {
+            return apply(PackedMove.of(m.move()));
+        }
+        return apply(MoveParser.INVALID);
+    }
+
+    /**
+     * Applies a command in the int form returned by {@link MoveParser#parsePacked}. An
+     * {@link MoveParser#INVALID} code yields ILLEGAL_MOVE with the current board, so a caller can go
+     * from raw input to a snapshot without exceptions.
+     */
+    public ReturnPlay apply(int parsed) {
+        return snapshotWithMessage(applyMessage(parsed));
+    }
+
+    /**
+     * Same as {@link #apply(int)} but returns only the message, without building a snapshot; callers
+     * that render the board themselves read it through {@link #pieceOn(int)}.
+     */
+    ReturnPlay.Message applyMessage(int parsed) {
+        if (gameOver || parsed < 0) {
+            return ReturnPlay.Message.ILLEGAL_MOVE;
         }
 
         // Resign immediately ends the game; opponent wins.
-        if (command instanceof Command.ResignCommand) {
+        if (parsed == MoveParser.RESIGN) {
             gameOver = true;
-            return snapshotWithMessage(
-                toMove == Color.WHITE ? ReturnPlay.Message.RESIGN_BLACK_WINS
-                                      : ReturnPlay.Message.RESIGN_WHITE_WINS
-            );
+            return toMove == Color.WHITE ? ReturnPlay.Message.RESIGN_BLACK_WINS
+                                         : ReturnPlay.Message.RESIGN_WHITE_WINS;
         }
 
-        // Extract move + draw-offer flag
-        final Move move;
-        final boolean isDrawOffer;
-        if (command instanceof Command.MoveWithDrawOffer m) {
-            move = m.move();
-            isDrawOffer = true;
-        } else if (command instanceof Command.MoveCommand m) {
-            move = m.move();
-            isDrawOffer = false;
-        } else {
-            return snapshotWithMessage(ReturnPlay.Message.ILLEGAL_MOVE);
+        return play(parsed & 0xFFFF, (parsed & MoveParser.DRAW_OFFER) != 0);
+    }
+
+    /**
+     * Validates and plays a packed move for the side to move, returning the message
+     * {@link #apply(Command)} would report (null for an ordinary move) without building a snapshot.
+     * Used by importers that advance games in bulk.
+     */
+    ReturnPlay.Message play(int move, boolean isDrawOffer) {
+        if (gameOver) {
+            return ReturnPlay.Message.ILLEGAL_MOVE;
         }
 
         // Validate and apply (with auto-queen on promotion if no piece specified).
-        Move legalMove = normalizePromotionIfNeeded(move);
+        int legalMove = normalizePromotionIfNeeded(move);
         if (!isLegal(legalMove)) {
-            return snapshotWithMessage(ReturnPlay.Message.ILLEGAL_MOVE);
+            return ReturnPlay.Message.ILLEGAL_MOVE;
         }
         applyMove(legalMove);
 
         // Draw offer is auto-accepted after the move (per assignment).
         if (isDrawOffer) {
             gameOver = true;
-            return snapshotWithMessage(ReturnPlay.Message.DRAW);
+            return ReturnPlay.Message.DRAW;
         }
 
-        // Check/checkmate state for the side that is now to move (opponent of the mover).
+        // Check/checkmate/stalemate state for the side that is now to move (opponent of the mover).
         Color opp = toMove.opposite();
         boolean oppInCheck = inCheck(opp);
-        boolean oppHasLegal = !allLegalMoves(opp).isEmpty();
+        boolean oppHasLegal = hasAnyLegalMove(opp);
 
         ReturnPlay.Message msg = null;
         if (oppInCheck && !oppHasLegal) {
@@ -115,23 +344,55 @@ public class Game {
                                        : ReturnPlay.Message.CHECKMATE_WHITE_WINS;
         } else if (oppInCheck) {
             msg = ReturnPlay.Message.CHECK;
+        } else if (!oppHasLegal) {
+            gameOver = true;
+            msg = ReturnPlay.Message.STALEMATE;
         }
 
         if (!gameOver) {
             toMove = opp; // switch turns
         }
-        return snapshotWithMessage(msg);
+        return msg;
+    }
+
+    /**
+     * Validates and plays a packed move for the side to move without building a snapshot, for
+     * replaying stored games. Returns false, leaving the game unchanged, if the move is illegal or
+     * the game is already over.
+     */
+    public boolean tryPlay(int move) {
+        return play(move, false) != ReturnPlay.Message.ILLEGAL_MOVE;
+    }
+
+    /**
+     * Moves applied since the game started (from the initial position or a FEN), oldest first, as
+     * {@link PackedMove} ints with any auto-queen promotion filled in. Search moves made with
+     * {@link #makeMove(int)} are not included.
+     */
+    public int[] history() {
+        return Arrays.copyOf(history, historyLength);
     }
 
-    /** Helper for Chess when parsing fails: return ILLEGAL_MOVE with current board snapshot. */
+    /**
+     * Helper for Chess when parsing fails: return ILLEGAL_MOVE with current board snapshot. The
+     * pieces come from the incrementally maintained per-square list, so the only allocations are
+     * the returned list and ReturnPlay.
+     * <p>
+     * Snapshots are read-only views. The list is fresh, but its {@link ReturnPiece} instances are
+     * shared with the game and with every other snapshot in which that piece has not moved since.
+     * The game never changes a ReturnPiece once created (a move puts a new one on the target
+     * square), so a snapshot stays accurate; a caller that writes to a piece's fields corrupts the
+     * game's later snapshots and must copy it first.
+     */
     public ReturnPlay snapshotWithMessage(ReturnPlay.Message message) {
-        ArrayList<ReturnPiece> pieces = new ArrayList<>();
-        for (Board.PieceOnSquare pos : board.pieces()) {
-            ReturnPiece rp = new ReturnPiece();
-            rp.pieceFile = ReturnPiece.PieceFile.values()[pos.square().file()];
-            rp.pieceRank = pos.square().rank() + 1;
-            rp.pieceType = mapType(pos.piece());
-            pieces.add(rp);
+        ArrayList<ReturnPiece> pieces = new ArrayList<>(returnPieceCount);
+        for (int file = 0; file < 8; file++) {
+            for (int rank = 0; rank < 8; rank++) {
+                ReturnPiece rp = returnPieces[(rank << 3) | file];
+                if (rp != null) {
+                    pieces.add(rp);
+                }
+            }
         }
         ReturnPlay out = new ReturnPlay();
         out.piecesOnBoard = pieces;
@@ -139,111 +400,309 @@ public class Game {
         return out;
     }
 
+    /**
+     * Pieces removed and added by the most recently applied move, for callers that track the board
+     * themselves and only need the change. Both lists are empty before the first move.
+     */
+    public SnapshotDelta lastDelta() {
+        ArrayList<ReturnPiece> removed = new ArrayList<>(2);
+        ArrayList<ReturnPiece> added = new ArrayList<>(1);
+        if (lastMovedOut != null) removed.add(lastMovedOut);
+        if (lastCaptured != null) removed.add(lastCaptured);
+        if (lastMovedIn != null) added.add(lastMovedIn);
+        return new SnapshotDelta(removed, added);
+    }
+
+    /**
+     * Change between two consecutive snapshots: the moved piece on its old square (plus any captured
+     * piece) is removed, and the moved piece on its new square (promoted if applicable) is added.
+     */
+    public record SnapshotDelta(List<ReturnPiece> removed, List<ReturnPiece> added) { }
+
+    /**
+     * 64-bit Zobrist key of the current position: piece placement plus side to move. Equal
+     * positions reached by different move orders get the same key, and the value is stable across
+     * JVMs, so it can be stored alongside games.
+     */
+    public long positionKey() {
+        return board.zobristKey() ^ (toMove == Color.BLACK ? Zobrist.SIDE_TO_MOVE : 0L);
+    }
+
+    /** Lists every legal move for the side to move; promotions appear once per target piece. */
+    public List<Move> legalMoves() {
+        int count = generateLegal(toMove, moveBuffer, 0);
+        List<Move> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            out.add(PackedMove.toMove(moveBuffer[i]));
+        }
+        return out;
+    }
+
+    /**
+     * Allocation-free form of {@link #legalMoves()}: writes {@link PackedMove} ints for the side to
+     * move into {@code buffer} from {@code offset} and returns the end index. The buffer must have
+     * at least {@link #MAX_MOVES} slots past the offset.
+     */
+    public int legalMoves(int[] buffer, int offset) {
+        return generateLegal(toMove, buffer, offset);
+    }
+
+    /**
+     * Like {@link #legalMoves(int[], int)}, but only the legal captures and promotions, for
+     * quiescence search. An empty result says nothing about mate or stalemate.
+     */
+    public int tacticalMoves(int[] buffer, int offset) {
+        return generator.generate(board, toMove, buffer, offset, true);
+    }
+
+    /**
+     * Counts the leaves of the legal move tree {@code depth} plies deep from the current position.
+     * The board is walked with make/unmake and is left unchanged.
+     */
+    public long perft(int depth) {
+        return perft(depth, toMove, 0);
+    }
+
+    /**
+     * Same count as {@link #perft(int)}, broken down by root move (in generation order).
+     */
+    public Map<Move, Long> divide(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("divide depth must be at least 1: " + depth);
+        }
+        Map<Move, Long> counts = new LinkedHashMap<>();
+        int end = generateLegal(toMove, moveBuffer, 0);
+        for (int i = 0; i < end; i++) {
+            int m = moveBuffer[i];
+            board.makeMove(m);
+            counts.put(PackedMove.toMove(m), perft(depth - 1, toMove.opposite(), end));
+            board.unmakeMove();
+        }
+        return counts;
+    }
+
+    private long perft(int depth, Color side, int offset) {
+        if (depth == 0) return 1;
+        ensureBufferCapacity(offset + MAX_MOVES);
+        int end = generateLegal(side, moveBuffer, offset);
+        if (depth == 1) return end - offset;
+
+        long nodes = 0;
+        for (int i = offset; i < end; i++) {
+            board.makeMove(moveBuffer[i]); // re-read: recursion may have grown the buffer
+            nodes += perft(depth - 1, side.opposite(), end);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    private void ensureBufferCapacity(int size) {
+        if (size > moveBuffer.length) {
+            moveBuffer = Arrays.copyOf(moveBuffer, Math.max(size, moveBuffer.length * 2));
+        }
+    }
+
+    // ------------------- search support -------------------
+
+    /** Side whose turn it is. Once the game is over this is the side that made the final move. */
+    public Color sideToMove() {
+        return toMove;
+    }
+
+    /** True after checkmate, stalemate, resignation or an accepted draw offer. */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /** Whether the side to move is in check. */
+    public boolean inCheck() {
+        return inCheck(toMove);
+    }
+
+    /**
+     * Static evaluation of the current position in centipawns from the side to move's point of
+     * view (see {@link Board#evaluate()}); kept up to date as moves are made, so it is cheap enough
+     * to call at every search leaf.
+     */
+    public int evaluate() {
+        int score = board.evaluate();
+        return toMove == Color.WHITE ? score : -score;
+    }
+
+    /** Piece on a square index (rank * 8 + file), or null if it is empty. */
+    public Piece pieceOn(int square) {
+        return board.pieceOn(square);
+    }
+
+    /**
+     * Plays a move taken from {@link #legalMoves(int[], int)} for search code that walks the tree
+     * with make/unmake. Nothing is validated, no result is detected and the snapshot state is left
+     * alone, so every call must be undone with {@link #unmakeMove()} before the game is used through
+     * {@link #apply} or {@link #snapshotWithMessage} again.
+     */
+    public void makeMove(int move) {
+        board.makeMove(move);
+        toMove = toMove.opposite();
+    }
+
+    /**
+     * Takes back the most recent {@link #makeMove(int)}.
+     *
+     * @throws IllegalStateException if there is no move to take back.
+     */
+    public void unmakeMove() {
+        board.unmakeMove();
+        toMove = toMove.opposite();
+    }
+
     // ------------------- legality, application, and helpers -------------------
 
-    private Move normalizePromotionIfNeeded(Move move) {
-        Piece mover = board.getPiece(move.from());
-        if (mover == null || mover.type() != PieceType.PAWN) return move;
+    /**
+     * Auto-queens a pawn reaching the last rank without a promotion piece, and drops a promotion
+     * piece given for any other move so it cannot turn a pawn push into a promotion.
+     */
+    private int normalizePromotionIfNeeded(int move) {
+        Piece mover = board.pieceOn(PackedMove.from(move));
+        if (mover == null || mover.type() != PieceType.PAWN) return PackedMove.squares(move);
 
-        int toRank = move.to().rank();
+        int toRank = PackedMove.to(move) >>> 3;
         boolean reachesLast = (mover.color() == Color.WHITE && toRank == 7)
                            || (mover.color() == Color.BLACK && toRank == 0);
 
-        if (reachesLast && !move.isPromotion()) {
+        if (!reachesLast) return PackedMove.squares(move);
+        if (!PackedMove.isPromotion(move)) {
             // Assignment: if no promotion piece indicated, assume queen.
-            return Move.promotion(move.from(), move.to(), PieceType.QUEEN);
+            return PackedMove.promotion(PackedMove.from(move), PackedMove.to(move), PieceType.QUEEN);
         }
         return move;
     }
 
-    private boolean isLegal(Move move) {
+    /**
+     * Checks one move directly: the mover's own pseudo-legal moves, then a make/unmake with a single
+     * attack query. That costs less than the full generation pass needed to keep a cached legal-move
+     * set for a lookup, now that mate detection stops at the first legal reply instead of listing
+     * them all.
+     */
+    private boolean isLegal(int move) {
         // Must move own piece.
-        Piece mover = board.getPiece(move.from());
+        int from = PackedMove.from(move);
+        Piece mover = board.pieceOn(from);
         if (mover == null || mover.color() != toMove) return false;
 
         // Must match a pseudo-legal move of the mover (by squares; promotion handled above).
+        int end = mover.generatePseudoLegalMoves(board, from, moveBuffer, 0);
         boolean found = false;
-        for (Move m : mover.generatePseudoLegalMoves(board, move.from())) {
-            if (sameSquares(m, move)) { found = true; break; }
+        for (int i = 0; i < end; i++) {
+            if (PackedMove.squares(moveBuffer[i]) == PackedMove.squares(move)) { found = true; break; }
         }
         if (!found) return false;
 
-        // Simulate on a snapshot and verify our own king is not in check after the move.
-        Board snap = board.copy();
-        // remove destination (capture) then move piece
-        snap.removePiece(move.to());
-        Piece moved = snap.removePiece(move.from());
-        if (moved.type() == PieceType.PAWN && move.isPromotion()) {
-            moved = promoted(moved.color(), move.promotion());
-        }
-        snap.setPiece(move.to(), moved);
+        return leavesKingSafe(move, toMove);
+    }
 
-        return !inCheck(toMove, snap);
+    /**
+     * Plays a pseudo-legal move in place, checks whether the mover's king is attacked, and takes it
+     * back again.
+     */
+    private boolean leavesKingSafe(int move, Color side) {
+        board.makeMove(move);
+        boolean safe = !inCheck(side);
+        board.unmakeMove();
+        return safe;
     }
 
-    private void applyMove(Move move) {
-        Piece mover = board.getPiece(move.from());
-        board.removePiece(move.from());
-        if (mover.type() == PieceType.PAWN && move.isPromotion()) {
-            mover = promoted(mover.color(), move.promotion());
+    private void applyMove(int move) {
+        if (historyLength == history.length) {
+            history = Arrays.copyOf(history, historyLength * 2);
+        }
+        history[historyLength++] = move;
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        Piece mover = board.removePiece(from);
+        boolean capture = board.pieceOn(to) != null;
+        halfmoveClock = (capture || mover.type() == PieceType.PAWN) ? 0 : halfmoveClock + 1;
+        if (mover.color() == Color.BLACK) {
+            fullmoveNumber++;
+        }
+        if (mover.type() == PieceType.PAWN && PackedMove.isPromotion(move)) {
+            mover = Piece.of(mover.color(), PackedMove.promotion(move));
+        }
+        board.setPiece(to, mover);
+
+        lastMovedOut = returnPieces[from];
+        lastCaptured = returnPieces[to];
+        lastMovedIn = returnPiece(to, mover);
+        returnPieces[from] = null;
+        returnPieces[to] = lastMovedIn;
+        if (lastCaptured != null) {
+            returnPieceCount--;
         }
-        board.setPiece(move.to(), mover);
     }
 
-    private static boolean sameSquares(Move a, Move b) {
-        return a.from().equals(b.from()) && a.to().equals(b.to());
+    private void rebuildReturnPieces() {
+        returnPieceCount = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            Piece p = board.pieceOn(sq);
+            returnPieces[sq] = p == null ? null : returnPiece(sq, p);
+            if (p != null) {
+                returnPieceCount++;
+            }
+        }
+        lastMovedOut = null;
+        lastCaptured = null;
+        lastMovedIn = null;
     }
 
-    private static Piece promoted(Color c, PieceType t) {
-        return switch (t) {
-            case QUEEN  -> new Queen(c);
-            case ROOK   -> new Rook(c);
-            case BISHOP -> new Bishop(c);
-            case KNIGHT -> new Knight(c);
-            default     -> new Queen(c); // fallback
-        };
+    private static ReturnPiece returnPiece(int sq, Piece p) {
+        ReturnPiece rp = new ReturnPiece();
+        rp.pieceFile = FILES[sq & 7];
+        rp.pieceRank = (sq >>> 3) + 1;
+        rp.pieceType = mapType(p);
+        return rp;
     }
 
     private boolean inCheck(Color side) {
-        return inCheck(side, this.board);
+        int k = board.kingIndex(side);
+        if (k < 0) return true; // king missing -> treat as in check
+        return board.isSquareAttacked(k, side.opposite());
     }
 
-    private boolean inCheck(Color side, Board view) {
-        Square k = findKing(side, view);
-        if (k == null) return true; // king missing -> treat as in check
-        Color opp = side.opposite();
-
-        // If any opponent pseudo-legal move hits the king square, it's check.
-        for (Board.PieceOnSquare pos : view.pieces()) {
-            Piece p = pos.piece();
-            if (p.color() != opp) continue;
-            for (Move m : p.generatePseudoLegalMoves(view, pos.square())) {
-                if (m.to().equals(k)) return true;
+    /**
+     * Stops at the first legal move for {@code side}. King moves are tried first, then captures
+     * (which include taking a checking piece), then everything else, so positions in check usually
+     * resolve after a handful of simulations and only mate and stalemate pay for a full scan.
+     */
+    private boolean hasAnyLegalMove(Color side) {
+        int king = board.kingIndex(side);
+        if (king >= 0) {
+            int end = board.pieceOn(king).generatePseudoLegalMoves(board, king, moveBuffer, 0);
+            for (int i = 0; i < end; i++) {
+                if (leavesKingSafe(moveBuffer[i], side)) return true;
             }
         }
-        return false;
-    }
-
-    private Square findKing(Color side, Board view) {
-        for (Board.PieceOnSquare pos : view.pieces()) {
-            Piece p = pos.piece();
-            if (p.type() == PieceType.KING && p.color() == side) {
-                return pos.square();
+        for (int pass = 0; pass < 2; pass++) {
+            boolean captures = pass == 0;
+            for (int sq = 0; sq < 64; sq++) {
+                Piece p = board.pieceOn(sq);
+                if (p == null || p.color() != side || sq == king) continue;
+                int end = p.generatePseudoLegalMoves(board, sq, moveBuffer, 0);
+                for (int i = 0; i < end; i++) {
+                    int m = moveBuffer[i];
+                    boolean capture = board.pieceOn(PackedMove.to(m)) != null;
+                    if (capture == captures && leavesKingSafe(m, side)) return true;
+                }
             }
         }
-        return null;
+        return false;
     }
 
-    private List<Move> allLegalMoves(Color side) {
-        ArrayList<Move> out = new ArrayList<>();
-        for (Board.PieceOnSquare pos : board.pieces()) {
-            Piece p = pos.piece();
-            if (p.color() != side) continue;
-            for (Move m : p.generatePseudoLegalMoves(board, pos.square())) {
-                if (isLegal(m)) out.add(m);
-            }
-        }
-        return out;
+    /**
+     * Writes the legal moves of {@code side} into {@code buffer} from {@code offset} and returns
+     * the end index. See {@link LegalMoveGenerator}: pins and checks are resolved up front, so only
+     * king moves are tested against the board.
+     */
+    private int generateLegal(Color side, int[] buffer, int offset) {
+        return generator.generate(board, side, buffer, offset);
     }
 
     private static ReturnPiece.PieceType mapType(Piece p) {
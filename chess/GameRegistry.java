@@ -0,0 +1,176 @@
+package chess;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Thread-safe table of independent games keyed by session ID.
+ * <p>
+ * Each session has its own lock, so requests for different sessions run in parallel and only
+ * requests for the same session are serialised. Sessions other than the default one that have not
+ * been touched for longer than the idle timeout are dropped by {@link #evictIdle()}, which can be
+ * run periodically via {@link #scheduleEviction}. Only {@link #DEFAULT_SESSION} is created on first
+ * use; every other session must come from {@link #open()}, so a request for an evicted or closed
+ * session fails instead of silently starting a new game. {@link Chess} uses one registry as the
+ * facade for its default session.
+ */
+public final class GameRegistry {
+    public static final String DEFAULT_SESSION = "default";
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final long idleTimeoutNanos; // <= 0 disables eviction
+    private final LongSupplier clock;
+
+    /**
+     * Registry that never evicts sessions.
+     */
+    public GameRegistry() {
+        this(Duration.ZERO);
+    }
+
+    /**
+     * Registry that evicts sessions idle for longer than {@code idleTimeout} (zero disables it).
+     */
+    public GameRegistry(Duration idleTimeout) {
+        this(idleTimeout, System::nanoTime);
+    }
+
+    GameRegistry(Duration idleTimeout, LongSupplier clock) {
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Creates a new session with a fresh game and returns its ID.
+     */
+    public String open() {
+        String id = UUID.randomUUID().toString();
+        sessions.put(id, new Session(clock.getAsLong()));
+        return id;
+    }
+
+    /**
+     * Parses and plays one line of input in the given session. Malformed input yields ILLEGAL_MOVE
+     * with the current board, as in {@link Chess#play}.
+     *
+     * @throws IllegalArgumentException if the session does not exist (and is not the default one).
+     */
+    public ReturnPlay play(String sessionId, String input) {
+        while (true) {
+            Session session = session(sessionId);
+            synchronized (session) {
+                if (session.evicted) {
+                    continue; // lost a race with evictIdle(); look the session up again
+                }
+                session.lastAccess = clock.getAsLong();
+                return session.game.apply(MoveParser.parsePacked(input));
+            }
+        }
+    }
+
+    /**
+     * Starts the session over from the initial position.
+     *
+     * @throws IllegalArgumentException if the session does not exist (and is not the default one).
+     */
+    public void reset(String sessionId) {
+        while (true) {
+            Session session = session(sessionId);
+            synchronized (session) {
+                if (session.evicted) {
+                    continue;
+                }
+                session.lastAccess = clock.getAsLong();
+                session.game = new Game();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Looks up a live session, creating only the default one on demand.
+     */
+    private Session session(String sessionId) {
+        if (sessionId.equals(DEFAULT_SESSION)) {
+            return sessions.computeIfAbsent(sessionId, id -> new Session(clock.getAsLong()));
+        }
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            throw new IllegalArgumentException("Unknown session: " + sessionId);
+        }
+        return session;
+    }
+
+    /**
+     * Removes a session. Returns false if it did not exist.
+     */
+    public boolean close(String sessionId) {
+        Session session = sessions.remove(sessionId);
+        if (session == null) {
+            return false;
+        }
+        synchronized (session) {
+            session.evicted = true;
+        }
+        return true;
+    }
+
+    /**
+     * Drops every session idle for longer than the timeout and returns how many were removed.
+     * {@link #DEFAULT_SESSION} is never evicted, since it would come back as a fresh game.
+     */
+    public int evictIdle() {
+        if (idleTimeoutNanos <= 0) {
+            return 0;
+        }
+        long now = clock.getAsLong();
+        int evicted = 0;
+        for (var entry : sessions.entrySet()) {
+            if (entry.getKey().equals(DEFAULT_SESSION)) {
+                continue;
+            }
+            Session session = entry.getValue();
+            synchronized (session) {
+                if (!session.evicted && now - session.lastAccess > idleTimeoutNanos) {
+                    session.evicted = true;
+                    sessions.remove(entry.getKey(), session);
+                    evicted++;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Runs {@link #evictIdle()} on the given scheduler every {@code period}.
+     */
+    public ScheduledFuture<?> scheduleEviction(ScheduledExecutorService scheduler, Duration period) {
+        long nanos = period.toNanos();
+        return scheduler.scheduleAtFixedRate(this::evictIdle, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Number of live sessions.
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Mutable per-session state; every field is guarded by the session's monitor.
+     */
+    private static final class Session {
+        private Game game = new Game();
+        private long lastAccess;
+        private boolean evicted = false;
+
+        private Session(long now) {
+            this.lastAccess = now;
+        }
+    }
+}
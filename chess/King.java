@@ -1,8 +1,5 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Generates all one-square king moves. Castling is handled separately inside Game because it
  * depends on board state beyond pure geometry.
@@ -13,15 +10,14 @@ public final class King extends Piece {
     }
 
     @Override
-    public List<Move> generatePseudoLegalMoves(PositionView position, Square from) {
-        List<Move> moves = new ArrayList<>(8);
+    public int generatePseudoLegalMoves(PositionView position, int from, int[] moves, int count) {
         for (int df = -1; df <= 1; df++) {
             for (int dr = -1; dr <= 1; dr++) {
                 if (df == 0 && dr == 0) {
                     continue; // skip staying in place
                 }
-                int file = from.file() + df;
-                int rank = from.rank() + dr;
+                int file = (from & 7) + df;
+                int rank = (from >>> 3) + dr;
                 if (!inBounds(file, rank)) {
                     continue; // off board
                 }
@@ -29,9 +25,9 @@ public final class King extends Piece {
                 if (isFriendly(occupant)) {
                     continue; // cannot capture own pieces
                 }
-                moves.add(Move.of(from, square(file, rank)));
+                moves[count++] = PackedMove.of(from, index(file, rank));
             }
         }
-        return moves;
+        return count;
     }
 }
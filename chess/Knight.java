@@ -1,8 +1,5 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Knight moves in L-shapes and can hop over intervening pieces.
  */
@@ -17,11 +14,10 @@ public final class Knight extends Piece {
     }
 
     @Override
-    public List<Move> generatePseudoLegalMoves(PositionView position, Square from) {
-        List<Move> moves = new ArrayList<>(8);
+    public int generatePseudoLegalMoves(PositionView position, int from, int[] moves, int count) {
         for (int[] d : DELTAS) {
-            int file = from.file() + d[0];
-            int rank = from.rank() + d[1];
+            int file = (from & 7) + d[0];
+            int rank = (from >>> 3) + d[1];
             if (!inBounds(file, rank)) {
                 continue; // off board
             }
@@ -29,8 +25,8 @@ public final class Knight extends Piece {
             if (isFriendly(occupant)) {
                 continue; // cannot land on own piece
             }
-            moves.add(Move.of(from, square(file, rank)));
+            moves[count++] = PackedMove.of(from, index(file, rank));
         }
-        return moves;
+        return count;
     }
 }
@@ -0,0 +1,236 @@
+package chess;
+
+/**
+ * Generates strictly legal moves without simulating each one.
+ * <p>
+ * One pass outward from the king finds the checking pieces, the squares that would block or capture
+ * a single checker, and every pinned piece together with the ray it may still move along. Moves of
+ * other pieces are then kept or dropped with a mask test. Only king moves need an attack query, and
+ * that runs with the king lifted off the board so it cannot hide behind itself on a checking ray.
+ * En passant, the one case this scheme cannot express with masks, is not part of the engine.
+ * <p>
+ * On a {@link BitBoard} the targets come straight from its attack tables and occupancy masks, so
+ * no piece generates a move only for it to be dropped; on a plain {@link Board} each piece
+ * generates its pseudo-legal moves and the masks filter them.
+ * <p>
+ * Instances hold scratch state and are not thread-safe; each {@link Game} owns one.
+ */
+final class LegalMoveGenerator {
+    private static final int[][] DIRECTIONS = {
+        {1, 0}, {-1, 0}, {0, 1}, {0, -1},
+        {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
+    };
+    private static final PieceType[] PROMOTIONS = {
+        PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT
+    };
+    private static final int[][] KNIGHT_DELTAS = {
+        {1, 2}, {2, 1}, {-1, 2}, {-2, 1},
+        {1, -2}, {2, -1}, {-1, -2}, {-2, -1}
+    };
+
+    private final long[] pinRay = new long[64]; // valid only for squares set in `pinned`
+    private long pinned;
+    private long checkMask;                     // squares that resolve a single check
+    private int checkers;
+
+    /**
+     * Writes the legal moves of {@code side} into {@code buffer} from {@code offset} and returns the
+     * end index. The buffer needs {@link Game#MAX_MOVES} free slots past the offset.
+     */
+    int generate(Board board, Color side, int[] buffer, int offset) {
+        return generate(board, side, buffer, offset, false);
+    }
+
+    /**
+     * Like {@link #generate(Board, Color, int[], int)}, but with {@code tacticalOnly} keeps only
+     * captures and promotions, dropping quiet moves before they are checked rather than after.
+     */
+    int generate(Board board, Color side, int[] buffer, int offset, boolean tacticalOnly) {
+        int king = board.kingIndex(side);
+        if (king < 0) {
+            return offset; // no king: Game treats the side as permanently in check
+        }
+        analyse(board, side, king);
+
+        long captures = -1L; // squares a move may land on
+        long promotions = 0L; // extra squares for pawns
+        if (tacticalOnly) {
+            captures = 0L;
+            Color opp = side.opposite();
+            if (board instanceof BitBoard bits) {
+                captures = bits.occupancy(opp);
+            } else {
+                for (int sq = 0; sq < 64; sq++) {
+                    Piece p = board.pieceOn(sq);
+                    if (p != null && p.color() == opp) captures |= 1L << sq;
+                }
+            }
+            promotions = side == Color.WHITE ? 0xFF00000000000000L : 0xFFL;
+        }
+
+        int end = offset;
+        if (checkers < 2 && board instanceof BitBoard bits) {
+            end = generateFromMasks(bits, side, king, checkers == 0 ? -1L : checkMask, captures, promotions,
+                                    buffer, end);
+        } else if (checkers < 2) {
+            long allowed = checkers == 0 ? -1L : checkMask;
+            for (int sq = 0; sq < 64; sq++) {
+                Piece p = board.pieceOn(sq);
+                if (p == null || p.color() != side || sq == king) continue;
+                long targets = (pinned & (1L << sq)) != 0 ? allowed & pinRay[sq] : allowed;
+                targets &= p.type() == PieceType.PAWN ? captures | promotions : captures;
+                if (targets == 0) continue;
+                int pieceEnd = p.generatePseudoLegalMoves(board, sq, buffer, end);
+                for (int i = end; i < pieceEnd; i++) {
+                    int m = buffer[i];
+                    if ((targets & (1L << PackedMove.to(m))) != 0) buffer[end++] = m;
+                }
+            }
+        }
+
+        Piece kingPiece = board.removePiece(king);
+        Color opp = side.opposite();
+        if (board instanceof BitBoard bits) {
+            long targets = BitBoard.KING_ATTACKS[king] & ~bits.occupancy(side) & captures;
+            for (; targets != 0; targets &= targets - 1) {
+                int to = Long.numberOfTrailingZeros(targets);
+                if (!board.isSquareAttacked(to, opp)) buffer[end++] = PackedMove.of(king, to);
+            }
+        } else {
+            int kingEnd = kingPiece.generatePseudoLegalMoves(board, king, buffer, end);
+            for (int i = end; i < kingEnd; i++) {
+                int m = buffer[i];
+                int to = PackedMove.to(m);
+                if ((captures & (1L << to)) != 0 && !board.isSquareAttacked(to, opp)) buffer[end++] = m;
+            }
+        }
+        board.setPiece(king, kingPiece);
+        return end;
+    }
+
+    /**
+     * Moves of every piece of {@code side} but the king on {@code king}, read from the masks of
+     * {@code board}: each piece's attack set is cut down to {@code allowed}, its pin ray and
+     * {@code captures} (plus {@code promotions} for pawns) before any move is written.
+     */
+    private int generateFromMasks(BitBoard board, Color side, int king, long allowed, long captures,
+                                  long promotions, int[] buffer, int end) {
+        long own = board.occupancy(side);
+        long enemy = board.occupancy(side.opposite());
+        long occupied = own | enemy;
+        for (PieceType type : PieceType.values()) {
+            long pieces = board.pieces(side, type) & ~(1L << king);
+            for (; pieces != 0; pieces &= pieces - 1) {
+                int sq = Long.numberOfTrailingZeros(pieces);
+                long targets = switch (type) {
+                    case KING -> BitBoard.KING_ATTACKS[sq];
+                    case QUEEN -> slides(sq, occupied, 0, 8);
+                    case ROOK -> slides(sq, occupied, 0, 4);
+                    case BISHOP -> slides(sq, occupied, 4, 8);
+                    case KNIGHT -> BitBoard.KNIGHT_ATTACKS[sq];
+                    case PAWN -> pawnTargets(side, sq, occupied, enemy);
+                };
+                targets &= ~own & allowed & (type == PieceType.PAWN ? captures | promotions : captures);
+                if ((pinned & (1L << sq)) != 0) targets &= pinRay[sq];
+                for (; targets != 0; targets &= targets - 1) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    if (type == PieceType.PAWN && (to >>> 3 == 0 || to >>> 3 == 7)) {
+                        for (PieceType promotion : PROMOTIONS) {
+                            buffer[end++] = PackedMove.promotion(sq, to, promotion);
+                        }
+                    } else {
+                        buffer[end++] = PackedMove.of(sq, to);
+                    }
+                }
+            }
+        }
+        return end;
+    }
+
+    /** Union of the slider attacks from {@code sq} along directions {@code [first, last)}. */
+    private static long slides(int sq, long occupied, int first, int last) {
+        long attacks = 0L;
+        for (int dir = first; dir < last; dir++) {
+            attacks |= BitBoard.rayAttacks(dir, sq, occupied);
+        }
+        return attacks;
+    }
+
+    /** Pushes (single, and double from the starting rank) and captures of a pawn on {@code sq}. */
+    private static long pawnTargets(Color side, int sq, long occupied, long enemy) {
+        long targets = BitBoard.PAWN_ATTACKS[side.ordinal()][sq] & enemy;
+        int step = side == Color.WHITE ? 8 : -8;
+        int forward = sq + step;
+        if (forward >= 0 && forward < 64 && (occupied & (1L << forward)) == 0) {
+            targets |= 1L << forward;
+            int startingRank = side == Color.WHITE ? 1 : 6;
+            if (sq >>> 3 == startingRank && (occupied & (1L << (forward + step))) == 0) {
+                targets |= 1L << (forward + step);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Fills {@link #checkers}, {@link #checkMask}, {@link #pinned} and {@link #pinRay} for the king
+     * of {@code side} standing on {@code king}.
+     */
+    private void analyse(Board board, Color side, int king) {
+        Color opp = side.opposite();
+        int kFile = king & 7;
+        int kRank = king >>> 3;
+        checkers = 0;
+        checkMask = 0L;
+        pinned = 0L;
+
+        // Sliding attackers and pins.
+        for (int dir = 0; dir < 8; dir++) {
+            int df = DIRECTIONS[dir][0];
+            int dr = DIRECTIONS[dir][1];
+            boolean diagonal = dir >= 4;
+            long ray = 0L;
+            int blocker = -1;
+            for (int f = kFile + df, r = kRank + dr; f >= 0 && f < 8 && r >= 0 && r < 8; f += df, r += dr) {
+                int sq = (r << 3) | f;
+                ray |= 1L << sq;
+                Piece p = board.pieceOn(sq);
+                if (p == null) continue;
+                if (p.color() == side) {
+                    if (blocker >= 0) break; // two friendly pieces: no pin
+                    blocker = sq;
+                    continue;
+                }
+                if (slidesAlong(p.type(), diagonal)) {
+                    if (blocker < 0) {
+                        checkers++;
+                        checkMask |= ray;
+                    } else {
+                        pinned |= 1L << blocker;
+                        pinRay[blocker] = ray;
+                    }
+                }
+                break; // any enemy piece ends the ray
+            }
+        }
+
+        // Knight and pawn checkers (they cannot be blocked, only captured).
+        for (int[] d : KNIGHT_DELTAS) {
+            addLeaper(board, kFile + d[0], kRank + d[1], opp, PieceType.KNIGHT);
+        }
+        int pawnRank = side == Color.WHITE ? kRank + 1 : kRank - 1; // enemy pawns attack "down" at us
+        addLeaper(board, kFile - 1, pawnRank, opp, PieceType.PAWN);
+        addLeaper(board, kFile + 1, pawnRank, opp, PieceType.PAWN);
+    }
+
+    private void addLeaper(Board board, int file, int rank, Color opp, PieceType type) {
+        Piece p = board.pieceAt(file, rank);
+        if (p != null && p.color() == opp && p.type() == type) {
+            checkers++;
+            checkMask |= 1L << ((rank << 3) | file);
+        }
+    }
+
+    private static boolean slidesAlong(PieceType type, boolean diagonal) {
+        return type == PieceType.QUEEN || type == (diagonal ? PieceType.BISHOP : PieceType.ROOK);
+    }
+}
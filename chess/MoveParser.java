@@ -6,9 +6,23 @@ import java.util.Locale;
  * Translates raw user input (e.g., "e2 e4", "g7 g8 Q", "g1 f3 draw?", "resign") into a
  * {@link Command} understood by the Game engine. Any malformed input triggers an
  * {@link IllegalArgumentException}, allowing the caller to convert it into an illegal move response.
+ * <p>
+ * {@link #parsePacked(CharSequence)} is the allocation-free form used on the request path: it scans
+ * the characters once and returns an int code instead of building objects or throwing.
  */
 public final class MoveParser {
 
+    /** {@link #parsePacked} result for input that is not a valid command. */
+    public static final int INVALID = -1;
+
+    /** {@link #parsePacked} result for "resign". */
+    public static final int RESIGN = 1 << 30;
+
+    /** Flag OR-ed onto a {@link PackedMove} when the move carries a draw offer. */
+    public static final int DRAW_OFFER = 1 << 16;
+
+    private static final String DRAW_SUFFIX = " draw?";
+
     private MoveParser() {
         // utility
     }
@@ -19,6 +33,103 @@ public final class MoveParser {
      * @throws IllegalArgumentException if the input is null, blank, or syntactically invalid.
      */
     public static Command parse(String rawInput) {
+        int parsed = parsePacked(rawInput);
+        if (parsed == INVALID) {
+            parseSlow(rawInput); // throws with the detailed message
+            throw new IllegalArgumentException("Invalid move input: " + rawInput);
+        }
+        if (parsed == RESIGN) {
+            return new Command.ResignCommand();
+        }
+        Move move = PackedMove.toMove(parsed & 0xFFFF);
+        return (parsed & DRAW_OFFER) != 0 ? new Command.MoveWithDrawOffer(move) : new Command.MoveCommand(move);
+    }
+
+    /**
+     * Parses the input without allocating or throwing. Returns {@link #INVALID}, {@link #RESIGN},
+     * or a {@link PackedMove} (low 16 bits) optionally flagged with {@link #DRAW_OFFER}. Accepts
+     * exactly what {@link #parse(String)} accepts.
+     */
+    public static int parsePacked(CharSequence input) {
+        if (input == null) {
+            return INVALID;
+        }
+        int start = 0;
+        int end = input.length();
+        for (int i = 0; i < end; i++) {
+            if (input.charAt(i) > 0x7F) {
+                return parseNonAscii(input); // case mapping can change lengths; keep the old path
+            }
+        }
+
+        // trim(): strip control characters and spaces from both ends.
+        while (start < end && input.charAt(start) <= ' ') start++;
+        while (end > start && input.charAt(end - 1) <= ' ') end--;
+        if (start == end) {
+            return INVALID;
+        }
+
+        if (end - start == 6 && regionMatchesIgnoreCase(input, start, "resign")) {
+            return RESIGN;
+        }
+
+        int flags = 0;
+        if (end - start >= DRAW_SUFFIX.length()
+                && regionMatchesIgnoreCase(input, end - DRAW_SUFFIX.length(), DRAW_SUFFIX)) {
+            flags = DRAW_OFFER;
+            end -= DRAW_SUFFIX.length();
+            while (end > start && input.charAt(end - 1) <= ' ') end--;
+            if (start == end) {
+                return INVALID;
+            }
+        }
+
+        // Tokens are separated by runs of regex \s; the ends are already trimmed.
+        int fromStart = start;
+        int fromEnd = tokenEnd(input, fromStart, end);
+        int toStart = skipSeparators(input, fromEnd, end);
+        int toEnd = tokenEnd(input, toStart, end);
+        int promoStart = skipSeparators(input, toEnd, end);
+        int promoEnd = tokenEnd(input, promoStart, end);
+        if (toStart == end || skipSeparators(input, promoEnd, end) != end) {
+            return INVALID; // fewer than two or more than three tokens
+        }
+
+        int from = square(input, fromStart, fromEnd);
+        int to = square(input, toStart, toEnd);
+        if (from < 0 || to < 0) {
+            return INVALID;
+        }
+        if (promoStart == end) {
+            return PackedMove.of(from, to) | flags;
+        }
+        if (promoEnd - promoStart != 1) {
+            return INVALID;
+        }
+        PieceType promotion = promotionType(Character.toUpperCase(input.charAt(promoStart)));
+        return promotion == null ? INVALID : PackedMove.promotion(from, to, promotion) | flags;
+    }
+
+    private static int parseNonAscii(CharSequence input) {
+        try {
+            Command command = parseSlow(input.toString());
+            if (command instanceof Command.ResignCommand) {
+                return RESIGN;
+            }
+            if (command instanceof Command.MoveWithDrawOffer m) {
+                return PackedMove.of(m.move()) | DRAW_OFFER;
+            }
+            return PackedMove.of(((Command.MoveCommand) command).move());
+        } catch (IllegalArgumentException ex) {
+            return INVALID;
+        }
+    }
+
+    /**
+     * Original String-based parser, kept for non-ASCII input and for its error messages, and as
+     * the reference {@code MoveParserTest} checks {@link #parsePacked} against.
+     */
+    static Command parseSlow(String rawInput) {
         if (rawInput == null) {
             throw new IllegalArgumentException("input");
         }
@@ -32,9 +143,9 @@ public final class MoveParser {
         }
 
         boolean drawOffered = false;
-        if (trimmed.toLowerCase(Locale.ROOT).endsWith(" draw?")) {
+        if (trimmed.toLowerCase(Locale.ROOT).endsWith(DRAW_SUFFIX)) {
             drawOffered = true;
-            trimmed = trimmed.substring(0, trimmed.length() - " draw?".length()).trim();
+            trimmed = trimmed.substring(0, trimmed.length() - DRAW_SUFFIX.length()).trim();
         }
 
         String[] tokens = trimmed.split("\\s+");
@@ -60,13 +171,57 @@ public final class MoveParser {
         if (token.length() != 1) {
             throw new IllegalArgumentException("Promotion piece must be one letter: " + token);
         }
-        char symbol = Character.toUpperCase(token.charAt(0));
+        PieceType type = promotionType(Character.toUpperCase(token.charAt(0)));
+        if (type == null) {
+            throw new IllegalArgumentException("Invalid promotion piece: " + token);
+        }
+        return type;
+    }
+
+    private static PieceType promotionType(char symbol) {
         return switch (symbol) {
             case 'Q' -> PieceType.QUEEN;
             case 'R' -> PieceType.ROOK;
             case 'B' -> PieceType.BISHOP;
             case 'N' -> PieceType.KNIGHT;
-            default -> throw new IllegalArgumentException("Invalid promotion piece: " + token);
+            default -> null;
         };
     }
+
+    /** Returns the square index of a two-character token such as "e2" or "E2", or -1. */
+    private static int square(CharSequence s, int start, int end) {
+        if (end - start != 2) {
+            return -1;
+        }
+        char file = Character.toLowerCase(s.charAt(start));
+        char rank = s.charAt(start + 1);
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            return -1;
+        }
+        return ((rank - '1') << 3) | (file - 'a');
+    }
+
+    /** Same characters as the regex class {@code \s}. */
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static int tokenEnd(CharSequence s, int i, int end) {
+        while (i < end && !isSeparator(s.charAt(i))) i++;
+        return i;
+    }
+
+    private static int skipSeparators(CharSequence s, int i, int end) {
+        while (i < end && isSeparator(s.charAt(i))) i++;
+        return i;
+    }
+
+    private static boolean regionMatchesIgnoreCase(CharSequence s, int offset, String ascii) {
+        for (int i = 0; i < ascii.length(); i++) {
+            if (Character.toLowerCase(s.charAt(offset + i)) != ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
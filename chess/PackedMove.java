@@ -0,0 +1,69 @@
+package chess;
+
+/**
+ * Encodes a move as a primitive {@code int} so generation and legality checks can run on reusable
+ * {@code int[]} buffers instead of allocating {@link Move} objects.
+ * <p>
+ * Layout (low 16 bits): bits 0-5 from square, bits 6-11 to square (both {@link Square#index()}),
+ * bits 12-15 promotion target as a {@link PieceType} ordinal, or 0 for no promotion. KING has
+ * ordinal 0 and is never a promotion target, so the zero value is unambiguous.
+ */
+public final class PackedMove {
+
+    private PackedMove() {
+        // utility
+    }
+
+    public static int of(int from, int to) {
+        return from | (to << 6);
+    }
+
+    public static int promotion(int from, int to, PieceType promotion) {
+        return from | (to << 6) | (promotion.ordinal() << 12);
+    }
+
+    /**
+     * Packs a {@link Move} object.
+     */
+    public static int of(Move move) {
+        int packed = of(move.from().index(), move.to().index());
+        return move.isPromotion() ? packed | (move.promotion().ordinal() << 12) : packed;
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    /**
+     * Returns from and to squares only, used to compare moves while ignoring the promotion piece.
+     */
+    public static int squares(int move) {
+        return move & 0xFFF;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move & 0xF000) != 0;
+    }
+
+    /**
+     * Returns the promotion target, or null when the move is not a promotion.
+     */
+    public static PieceType promotion(int move) {
+        int ordinal = (move >>> 12) & 0xF;
+        return ordinal == 0 ? null : PieceType.values()[ordinal];
+    }
+
+    /**
+     * Expands a packed move back into a {@link Move} object.
+     */
+    public static Move toMove(int move) {
+        Square from = Square.ofIndex(from(move));
+        Square to = Square.ofIndex(to(move));
+        PieceType promotion = promotion(move);
+        return promotion == null ? Move.of(from, to) : Move.promotion(from, to, promotion);
+    }
+}
@@ -1,36 +1,36 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
- * Pawn handles forward pushes and diagonal captures. En passant and promotion will be layered on
- * by the Game once it knows the surrounding context.
+ * Pawn handles forward pushes and diagonal captures. Moves onto the last rank are emitted once per
+ * promotion target so move counts include under-promotions. En passant will be layered on by the
+ * Game once it knows the surrounding context.
  */
 public final class Pawn extends Piece {
     private static final int[] CAPTURE_DELTAS = {-1, 1};
+    private static final PieceType[] PROMOTIONS = {
+        PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT
+    };
 
     public Pawn(Color color) {
         super(color, PieceType.PAWN);
     }
 
     @Override
-    public List<Move> generatePseudoLegalMoves(PositionView position, Square from) {
-        List<Move> moves = new ArrayList<>(4);
+    public int generatePseudoLegalMoves(PositionView position, int from, int[] moves, int count) {
         int direction = color() == Color.WHITE ? 1 : -1;
-        int file = from.file();
-        int rank = from.rank();
+        int file = from & 7;
+        int rank = from >>> 3;
 
         // Single push straight ahead if empty.
         int forwardRank = rank + direction;
         if (inBounds(file, forwardRank) && position.isEmpty(file, forwardRank)) {
-            moves.add(Move.of(from, square(file, forwardRank)));
+            count = addMove(moves, count, from, index(file, forwardRank));
 
             // Double push from starting rank if both squares are empty.
             int startingRank = color() == Color.WHITE ? 1 : 6;
             int doubleRank = rank + (2 * direction);
             if (rank == startingRank && inBounds(file, doubleRank) && position.isEmpty(file, doubleRank)) {
-                moves.add(Move.of(from, square(file, doubleRank)));
+                moves[count++] = PackedMove.of(from, index(file, doubleRank));
             }
         }
 
@@ -43,10 +43,22 @@ public final class Pawn extends Piece {
             }
             Piece occupant = position.pieceAt(targetFile, targetRank);
             if (isOpponent(occupant)) {
-                moves.add(Move.of(from, square(targetFile, targetRank)));
+                count = addMove(moves, count, from, index(targetFile, targetRank));
             }
         }
 
-        return moves;
+        return count;
+    }
+
+    private static int addMove(int[] moves, int count, int from, int to) {
+        int toRank = to >>> 3;
+        if (toRank == 0 || toRank == 7) {
+            for (PieceType promotion : PROMOTIONS) {
+                moves[count++] = PackedMove.promotion(from, to, promotion);
+            }
+        } else {
+            moves[count++] = PackedMove.of(from, to);
+        }
+        return count;
     }
 }
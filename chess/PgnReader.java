@@ -0,0 +1,418 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming PGN importer. Reads tag pairs and SAN movetext incrementally through a fixed-size char
+ * buffer, resolves each SAN token (e.g. "Nbd7", "exd8=Q+") against the legal moves of a {@link Game}
+ * that follows the game along, and hands the result to a {@link Handler} as {@link Command}s.
+ * <p>
+ * Memory use is bounded by the buffers allocated here plus one {@link Game} per game being read;
+ * neither whole files nor whole games are held, and SAN tokens are resolved straight from a reused
+ * char array. Comments, variations, NAGs and escape lines are skipped. Castling and en passant are
+ * not implemented by the engine, so a game using them is reported through
+ * {@link Handler#unresolved} and the rest of its movetext is skipped, as are moves after the game has ended.
+ */
+public final class PgnReader implements Closeable {
+
+    /**
+     * Receives the contents of each game. CharSequence arguments are views over reused buffers and
+     * are only valid for the duration of the call.
+     */
+    public interface Handler {
+        default void startGame() { }
+
+        default void tag(CharSequence name, CharSequence value) { }
+
+        /**
+         * A resolved move as a {@link PackedMove}, with the {@link Game#positionKey()} of the
+         * position it was played from, so a handler can key positions without following the game
+         * itself. Called once the move has been played, just before {@link #move(Command)}.
+         */
+        default void move(long positionKey, int move) { }
+
+        /** A resolved move, already played on the reader's game. */
+        default void move(Command command) { }
+
+        /**
+         * A token that is not a legal move in the current position, or any move after the game has
+         * ended; the game's remaining moves are skipped.
+         */
+        default void unresolved(int ply, CharSequence san) { }
+
+        /** End of a game with its result token ("1-0", "0-1", "1/2-1/2" or "*"). */
+        default void endGame(CharSequence result) { }
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_TOKEN = 64;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+    private boolean lineStart = true;
+
+    private final char[] token = new char[MAX_TOKEN];
+    private int tokenLength;
+    private boolean tokenOverflow;
+    private final CharArrayView tokenView = new CharArrayView(token);
+
+    private final StringBuilder tagName = new StringBuilder();
+    private final StringBuilder tagValue = new StringBuilder();
+    private final int[] moves = new int[Game.MAX_MOVES];
+
+    private Game game;
+    private boolean inGame;
+    private boolean movetextSeen;
+    private boolean skipping;
+    private int ply;
+
+    public PgnReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads games until end of input and returns how many were reported to the handler.
+     */
+    public long readAll(Handler handler) throws IOException {
+        long games = 0;
+        int c;
+        while ((c = read()) >= 0) {
+            if (c == '%' && lineStart) {
+                skipLine();
+                continue;
+            }
+            lineStart = c == '\n';
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            switch (c) {
+                case '[' -> {
+                    if (inGame && movetextSeen) {
+                        handler.endGame("*"); // movetext without a result: the game ended early
+                        inGame = false;
+                        games++;
+                    }
+                    if (!inGame) {
+                        beginGame(handler);
+                    }
+                    readTag(handler);
+                }
+                case '{' -> skipUntil('}');
+                case ';' -> skipLine();
+                case '(' -> skipVariation();
+                case '$' -> readToken(); // numeric annotation glyph
+                case ')', ']', '}', '"' -> { } // stray closer outside any construct
+                default -> {
+                    unread();
+                    readToken();
+                    if (!inGame) {
+                        beginGame(handler);
+                    }
+                    movetextSeen = true;
+                    if (isResult()) {
+                        handler.endGame(tokenView.length(tokenLength));
+                        inGame = false;
+                        games++;
+                    } else {
+                        handleMoveToken(handler);
+                    }
+                }
+            }
+        }
+        if (inGame) {
+            handler.endGame("*");
+            inGame = false;
+            games++;
+        }
+        return games;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // ------------------- game and movetext handling -------------------
+
+    private void beginGame(Handler handler) {
+        game = new Game();
+        inGame = true;
+        movetextSeen = false;
+        skipping = false;
+        ply = 0;
+        handler.startGame();
+    }
+
+    private boolean isResult() {
+        return tokenEquals("1-0") || tokenEquals("0-1") || tokenEquals("1/2-1/2") || tokenEquals("*");
+    }
+
+    private void handleMoveToken(Handler handler) {
+        // Strip a leading move number ("12." / "12..." / "12...e5").
+        int start = 0;
+        while (start < tokenLength && isDigit(token[start])) {
+            start++;
+        }
+        if (start == tokenLength) {
+            return; // bare number
+        }
+        if (start > 0 && token[start] == '.') {
+            while (start < tokenLength && token[start] == '.') {
+                start++;
+            }
+        } else {
+            start = 0; // not a move number after all (e.g. "0-0")
+        }
+        if (start == tokenLength || skipping) {
+            return;
+        }
+
+        // A finished game (e.g. after mate) never hands the turn back, so nothing more resolves.
+        int move = tokenOverflow || game.isGameOver() ? -1 : resolveSan(start, tokenLength);
+        long positionKey = game.positionKey();
+        if (move < 0 || game.play(move, false) == ReturnPlay.Message.ILLEGAL_MOVE) {
+            handler.unresolved(ply, tokenView.slice(start, tokenLength));
+            skipping = true;
+            return;
+        }
+        handler.move(positionKey, move);
+        handler.move(new Command.MoveCommand(PackedMove.toMove(move)));
+        ply++;
+    }
+
+    /**
+     * Resolves token[start, end) as SAN in the current position. Returns the packed legal move, or
+     * -1 if the token is malformed, matches no legal move, or is ambiguous.
+     */
+    private int resolveSan(int start, int end) {
+        while (end > start && isSuffix(token[end - 1])) {
+            end--;
+        }
+        if (end - start >= 3 && (token[start] == 'O' || token[start] == '0')) {
+            return -1; // castling is not supported by the engine
+        }
+
+        PieceType promotion = null;
+        if (end - start >= 3 && token[end - 2] == '=') {
+            promotion = pieceType(Character.toUpperCase(token[end - 1]));
+            end -= 2;
+            if (promotion == null) return -1;
+        } else if (end - start >= 3 && isRank(token[end - 2]) && pieceType(token[end - 1]) != null) {
+            promotion = pieceType(token[end - 1]);
+            end -= 1;
+        }
+
+        if (end - start < 2 || !isFile(token[end - 2]) || !isRank(token[end - 1])) {
+            return -1;
+        }
+        int to = ((token[end - 1] - '1') << 3) | (token[end - 2] - 'a');
+        end -= 2;
+
+        PieceType type = PieceType.PAWN;
+        PieceType named = pieceType(token[start]);
+        if (named != null) {
+            type = named;
+            start++;
+        }
+
+        int fromFile = -1;
+        int fromRank = -1;
+        for (int i = start; i < end; i++) {
+            char c = token[i];
+            if (c == 'x' || c == ':' || c == '-') continue;
+            if (isFile(c)) fromFile = c - 'a';
+            else if (isRank(c)) fromRank = c - '1';
+            else return -1;
+        }
+
+        Board board = game.board();
+        int count = game.legalMoves(moves, 0);
+        int match = -1;
+        for (int i = 0; i < count; i++) {
+            int m = moves[i];
+            int from = PackedMove.from(m);
+            if (PackedMove.to(m) != to || board.pieceOn(from).type() != type) continue;
+            if (fromFile >= 0 && (from & 7) != fromFile) continue;
+            if (fromRank >= 0 && (from >>> 3) != fromRank) continue;
+            if (PackedMove.isPromotion(m)) {
+                // SAN always names the piece; tolerate a missing one as a queen like coordinate input.
+                if (PackedMove.promotion(m) != (promotion != null ? promotion : PieceType.QUEEN)) continue;
+            } else if (promotion != null) {
+                continue;
+            }
+            if (match >= 0) return -1; // ambiguous
+            match = m;
+        }
+        return match;
+    }
+
+    // ------------------- low-level tokenising -------------------
+
+    private void readTag(Handler handler) throws IOException {
+        tagName.setLength(0);
+        tagValue.setLength(0);
+        int c = read();
+        while (c >= 0 && Character.isWhitespace(c)) c = read();
+        while (c >= 0 && !Character.isWhitespace(c) && c != '"' && c != ']') {
+            tagName.append((char) c);
+            c = read();
+        }
+        while (c >= 0 && c != '"' && c != ']') c = read();
+        if (c == '"') {
+            c = read();
+            while (c >= 0 && c != '"') {
+                if (c == '\\') c = read(); // escaped quote or backslash
+                if (c >= 0) tagValue.append((char) c);
+                c = read();
+            }
+            while (c >= 0 && c != ']') c = read();
+        }
+        handler.tag(tagName, tagValue);
+    }
+
+    /**
+     * Reads the next run of non-delimiter characters into {@link #token}. Characters past
+     * {@link #MAX_TOKEN} are consumed but dropped and flag the token as overflowed.
+     */
+    private void readToken() throws IOException {
+        tokenLength = 0;
+        tokenOverflow = false;
+        int c;
+        while ((c = read()) >= 0) {
+            if (Character.isWhitespace(c) || c == '{' || c == '}' || c == '(' || c == ')'
+                    || c == '[' || c == ']' || c == ';' || c == '"' || c == '$') {
+                unread();
+                return;
+            }
+            if (tokenLength < MAX_TOKEN) {
+                token[tokenLength++] = (char) c;
+            } else {
+                tokenOverflow = true;
+            }
+        }
+    }
+
+    private void skipUntil(char terminator) throws IOException {
+        int c;
+        while ((c = read()) >= 0 && c != terminator) {
+            // skip
+        }
+    }
+
+    private void skipLine() throws IOException {
+        skipUntil('\n');
+        lineStart = true;
+    }
+
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        int c;
+        while (depth > 0 && (c = read()) >= 0) {
+            if (c == '(') depth++;
+            else if (c == ')') depth--;
+            else if (c == '{') skipUntil('}');
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            int n = in.read(buffer, 0, buffer.length);
+            if (n <= 0) {
+                return -1;
+            }
+            position = 0;
+            limit = n;
+        }
+        return buffer[position++];
+    }
+
+    /**
+     * Pushes back the character just returned by {@link #read()}; always still in the buffer.
+     */
+    private void unread() {
+        position--;
+    }
+
+    private boolean tokenEquals(String s) {
+        if (tokenLength != s.length()) return false;
+        for (int i = 0; i < tokenLength; i++) {
+            if (token[i] != s.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isSuffix(char c) {
+        return c == '+' || c == '#' || c == '!' || c == '?';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isFile(char c) {
+        return c >= 'a' && c <= 'h';
+    }
+
+    private static boolean isRank(char c) {
+        return c >= '1' && c <= '8';
+    }
+
+    private static PieceType pieceType(char c) {
+        return switch (c) {
+            case 'K' -> PieceType.KING;
+            case 'Q' -> PieceType.QUEEN;
+            case 'R' -> PieceType.ROOK;
+            case 'B' -> PieceType.BISHOP;
+            case 'N' -> PieceType.KNIGHT;
+            default -> null;
+        };
+    }
+
+    /**
+     * Reusable CharSequence over a prefix or slice of a char array, handed to the handler so tokens
+     * are reported without allocating a String.
+     */
+    private static final class CharArrayView implements CharSequence {
+        private final char[] chars;
+        private int start;
+        private int end;
+
+        private CharArrayView(char[] chars) {
+            this.chars = chars;
+        }
+
+        private CharArrayView length(int length) {
+            return slice(0, length);
+        }
+
+        private CharArrayView slice(int start, int end) {
+            this.start = start;
+            this.end = end;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return chars[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new String(chars, start + from, to - from);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, start, end - start);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package chess;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
@@ -17,6 +18,14 @@ public abstract class Piece {
         this.type = Objects.requireNonNull(type, "type");
     }
 
+    /**
+     * Returns a shared instance for the given color and type. Pieces carry no per-square state, so
+     * one instance of each kind can sit on any number of boards (used for promotions and undo).
+     */
+    public static Piece of(Color color, PieceType type) {
+        return Shared.PIECES[color.ordinal() * 6 + type.ordinal()];
+    }
+
     public Color color() {
         return color;
     }
@@ -25,18 +34,39 @@ public abstract class Piece {
         return type;
     }
 
+    /**
+     * Upper bound on the moves a single piece can produce (a centralised queen reaches 27 squares),
+     * i.e. the free space a caller must leave in the buffer before each packed generation call.
+     */
+    public static final int MAX_MOVES_PER_PIECE = 28;
+
     /**
      * Generates every move allowed by the piece's geometry without considering king safety.
      * The Game class will filter these pseudo-legal moves to remove ones that leave the king in check.
      */
-    public abstract List<Move> generatePseudoLegalMoves(PositionView position, Square from);
+    public List<Move> generatePseudoLegalMoves(PositionView position, Square from) {
+        int[] buffer = new int[MAX_MOVES_PER_PIECE];
+        int count = generatePseudoLegalMoves(position, from.index(), buffer, 0);
+        List<Move> moves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            moves.add(PackedMove.toMove(buffer[i]));
+        }
+        return moves;
+    }
+
+    /**
+     * Allocation-free form of {@link #generatePseudoLegalMoves(PositionView, Square)}: writes
+     * {@link PackedMove} ints into {@code moves} starting at {@code count} and returns the new count.
+     * The caller owns the buffer and must leave at least {@link #MAX_MOVES_PER_PIECE} free slots.
+     */
+    public abstract int generatePseudoLegalMoves(PositionView position, int from, int[] moves, int count);
 
     protected static boolean inBounds(int file, int rank) {
         return file >= 0 && file < 8 && rank >= 0 && rank < 8;
     }
 
-    protected static Square square(int file, int rank) {
-        return Square.of(file, rank);
+    protected static int index(int file, int rank) {
+        return (rank << 3) | file;
     }
 
     protected boolean isOpponent(Piece other) {
@@ -47,6 +77,25 @@ public abstract class Piece {
         return other != null && other.color == color;
     }
 
+    /**
+     * Lazily initialised holder so the subclasses are fully loaded before instances are created.
+     */
+    private static final class Shared {
+        private static final Piece[] PIECES = new Piece[12];
+
+        static {
+            for (Color c : Color.values()) {
+                int base = c.ordinal() * 6;
+                PIECES[base + PieceType.KING.ordinal()] = new King(c);
+                PIECES[base + PieceType.QUEEN.ordinal()] = new Queen(c);
+                PIECES[base + PieceType.ROOK.ordinal()] = new Rook(c);
+                PIECES[base + PieceType.BISHOP.ordinal()] = new Bishop(c);
+                PIECES[base + PieceType.KNIGHT.ordinal()] = new Knight(c);
+                PIECES[base + PieceType.PAWN.ordinal()] = new Pawn(c);
+            }
+        }
+    }
+
     /**
      * Read-only view of a board position. Board and its snapshots will implement this so pieces can
      * ask what occupies a square while remaining decoupled from the concrete storage.
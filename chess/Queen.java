@@ -1,8 +1,5 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Queen combines rook and bishop movement, sliding any distance until blocked.
  */
@@ -17,31 +14,31 @@ public final class Queen extends Piece {
     }
 
     @Override
-    public List<Move> generatePseudoLegalMoves(PositionView position, Square from) {
-        List<Move> moves = new ArrayList<>(27);
+    public int generatePseudoLegalMoves(PositionView position, int from, int[] moves, int count) {
         for (int[] d : DIRECTIONS) {
-            collectSlidingMoves(position, from, moves, d[0], d[1]);
+            count = collectSlidingMoves(position, from, moves, count, d[0], d[1]);
         }
-        return moves;
+        return count;
     }
 
     /**
      * Walks step-by-step in the supplied direction until we run off the board or get blocked.
      */
-    private void collectSlidingMoves(PositionView position, Square from, List<Move> moves, int df, int dr) {
-        int file = from.file() + df;
-        int rank = from.rank() + dr;
+    private int collectSlidingMoves(PositionView position, int from, int[] moves, int count, int df, int dr) {
+        int file = (from & 7) + df;
+        int rank = (from >>> 3) + dr;
         while (inBounds(file, rank)) {
             Piece occupant = position.pieceAt(file, rank);
             if (isFriendly(occupant)) {
-                return; // friendly piece stops the ray without producing a move
+                return count; // friendly piece stops the ray without producing a move
             }
-            moves.add(Move.of(from, square(file, rank)));
+            moves[count++] = PackedMove.of(from, index(file, rank));
             if (occupant != null) {
-                return; // enemy piece captured; nothing beyond it
+                return count; // enemy piece captured; nothing beyond it
             }
             file += df;
             rank += dr;
         }
+        return count;
     }
 }
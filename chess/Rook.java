@@ -1,8 +1,5 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Rook slides horizontally and vertically until it hits the edge or a blocking piece.
  */
@@ -16,28 +13,28 @@ public final class Rook extends Piece {
     }
 
     @Override
-    public List<Move> generatePseudoLegalMoves(PositionView position, Square from) {
-        List<Move> moves = new ArrayList<>(14);
+    public int generatePseudoLegalMoves(PositionView position, int from, int[] moves, int count) {
         for (int[] d : DIRECTIONS) {
-            collectSlidingMoves(position, from, moves, d[0], d[1]);
+            count = collectSlidingMoves(position, from, moves, count, d[0], d[1]);
         }
-        return moves;
+        return count;
     }
 
-    private void collectSlidingMoves(PositionView position, Square from, List<Move> moves, int df, int dr) {
-        int file = from.file() + df;
-        int rank = from.rank() + dr;
+    private int collectSlidingMoves(PositionView position, int from, int[] moves, int count, int df, int dr) {
+        int file = (from & 7) + df;
+        int rank = (from >>> 3) + dr;
         while (inBounds(file, rank)) {
             Piece occupant = position.pieceAt(file, rank);
             if (isFriendly(occupant)) {
-                return; // rook cannot capture its own piece and cannot move past it
+                return count; // rook cannot capture its own piece and cannot move past it
             }
-            moves.add(Move.of(from, square(file, rank)));
+            moves[count++] = PackedMove.of(from, index(file, rank));
             if (occupant != null) {
-                return; // capture terminates the ray
+                return count; // capture terminates the ray
             }
             file += df;
             rank += dr;
         }
+        return count;
     }
 }
@@ -0,0 +1,295 @@
+package chess;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocking TCP server speaking the {@link PlayChess} line protocol, running each connection as one
+ * session task that reads lines, drives its own {@link Game} with {@link MoveParser#parse} and
+ * {@link Game#apply}, and writes the console's output back. Where {@link ChessServer} multiplexes
+ * connections over a few selector threads, this keeps the plain one-loop-per-client code and
+ * leaves the scaling to the executor: {@link #virtualThreads()} gives every session its own
+ * virtual thread, while a fixed platform-thread pool serves at most that many sessions at a time
+ * and queues the rest. As in {@link ChessServer}, a client sending a line longer than 1 KB is
+ * disconnected.
+ * <p>
+ * Compare the two with {@link chess.perf.SessionLoad}.
+ */
+public final class SessionServer implements Closeable {
+
+    /** Longest accepted line; a client sending more without a newline is disconnected. */
+    private static final int MAX_LINE_BYTES = 1024;
+
+    private final ServerSocket server;
+    private final ExecutorService sessions;
+    private final Set<Socket> open = ConcurrentHashMap.newKeySet();
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    private SessionServer(ServerSocket server, ExecutorService sessions) {
+        this.server = server;
+        this.sessions = sessions;
+        this.acceptor = new Thread(this::acceptLoop, "session-server-accept");
+        this.acceptor.setDaemon(true);
+    }
+
+    /**
+     * Binds to {@code address} (port 0 picks a free port) and runs each accepted connection as a
+     * task on {@code sessions}. The server owns the executor and shuts it down on {@link #close()}.
+     */
+    public static SessionServer start(InetSocketAddress address, ExecutorService sessions) throws IOException {
+        ServerSocket server = new ServerSocket();
+        try {
+            server.bind(address, 4096);
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+        SessionServer chess = new SessionServer(server, sessions);
+        chess.acceptor.start();
+        return chess;
+    }
+
+    /**
+     * An executor that starts a new virtual thread per task, or null if this JVM has no virtual
+     * threads (they need Java 21). Looked up reflectively so the code still builds for Java 17.
+     */
+    public static ExecutorService virtualThreads() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /** Address the server is listening on. */
+    public InetSocketAddress address() {
+        return (InetSocketAddress) server.getLocalSocketAddress();
+    }
+
+    /** Number of currently open connections, including ones still waiting for a pool thread. */
+    public int connections() {
+        return open.size();
+    }
+
+    /**
+     * Stops accepting, closes every connection, and shuts the executor down and waits (up to ten
+     * seconds) for its threads to finish.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        try {
+            acceptor.join(); // no new sockets after this
+            for (Socket socket : open) {
+                closeQuietly(socket);
+            }
+            sessions.shutdownNow();
+            sessions.awaitTermination(10, TimeUnit.SECONDS); // sessions end once their sockets close
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                if (closed) {
+                    return;
+                }
+                pause(); // e.g. out of file descriptors; pending clients wait in the backlog
+                continue;
+            }
+            open.add(socket);
+            try {
+                sessions.execute(() -> serve(socket));
+            } catch (RejectedExecutionException e) {
+                open.remove(socket);
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            LineReader in = new LineReader(socket.getInputStream());
+            Writer out = new BufferedWriter(
+                new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII), 512);
+            Game game = new Game();
+            StringBuilder reply = new StringBuilder(512);
+            for (String line = in.readLine(); line != null && !line.equals("quit"); line = in.readLine()) {
+                reply.setLength(0);
+                if (line.equals("reset")) {
+                    game = new Game();
+                    reply.append('\n');
+                } else {
+                    ReturnPlay res = play(game, line);
+                    if (res.message != null) {
+                        reply.append('\n').append(res.message).append('\n');
+                    }
+                    reply.append('\n');
+                    appendBoard(reply, res.piecesOnBoard);
+                    reply.append('\n');
+                }
+                out.append(reply);
+                out.flush();
+            }
+        } catch (SocketException e) {
+            // the client went away, or the server is closing
+        } catch (LineTooLongException e) {
+            // close the connection; it never sends a proper line
+        } catch (IOException e) {
+            if (!closed) {
+                e.printStackTrace();
+            }
+        } finally {
+            open.remove(socket);
+        }
+    }
+
+    /**
+     * Reads ASCII lines ending at \n, \r or \r\n, like the console's {@link java.util.Scanner},
+     * refusing lines longer than {@link #MAX_LINE_BYTES} so one client cannot exhaust the heap.
+     */
+    private static final class LineReader {
+        private final InputStream in;
+        private final byte[] buffer = new byte[256];
+        private int position;
+        private int limit;
+        private final byte[] line = new byte[MAX_LINE_BYTES];
+        private boolean afterCr; // the last line ended with \r, so a following \n is part of it
+
+        LineReader(InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Returns the next line without its terminator, or null at the end of the stream.
+         *
+         * @throws IOException if the line is longer than {@link #MAX_LINE_BYTES}.
+         */
+        String readLine() throws IOException {
+            int length = 0;
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer);
+                    position = 0;
+                    if (limit < 0) {
+                        limit = 0;
+                        return length > 0 ? new String(line, 0, length, StandardCharsets.ISO_8859_1) : null;
+                    }
+                }
+                byte b = buffer[position++];
+                if (b == '\n' && afterCr && length == 0) {
+                    afterCr = false; // second half of \r\n
+                    continue;
+                }
+                afterCr = b == '\r';
+                if (b == '\n' || b == '\r') {
+                    return new String(line, 0, length, StandardCharsets.ISO_8859_1);
+                }
+                if (length == MAX_LINE_BYTES) {
+                    throw new LineTooLongException();
+                }
+                line[length++] = b;
+            }
+        }
+    }
+
+    private static final class LineTooLongException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        LineTooLongException() {
+            super("line longer than " + MAX_LINE_BYTES + " bytes");
+        }
+    }
+
+    private static ReturnPlay play(Game game, String line) {
+        Command command;
+        try {
+            command = MoveParser.parse(line);
+        } catch (IllegalArgumentException e) {
+            return game.apply(MoveParser.INVALID);
+        }
+        return game.apply(command);
+    }
+
+    /** Same layout as {@link PlayChess#printBoard}. */
+    private static void appendBoard(StringBuilder out, ArrayList<ReturnPiece> pieces) {
+        String[][] board = PlayChess.makeBlankBoard();
+        if (pieces != null) {
+            PlayChess.printPiecesOnBoard(pieces, board);
+        }
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 8; c++) {
+                out.append(board[r][c]).append(' ');
+            }
+            out.append(8 - r).append('\n');
+        }
+        out.append(" a  b  c  d  e  f  g  h\n");
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // already gone
+        }
+    }
+
+    /**
+     * Usage: {@code java chess.SessionServer [port] [--platform threads]}, by default port 8766 with
+     * a virtual thread per session (a platform pool of 256 threads where virtual threads are not
+     * available).
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = 8766;
+        int platformThreads = 0;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--platform")) {
+                platformThreads = Integer.parseInt(args[++i]);
+            } else {
+                port = Integer.parseInt(args[i]);
+            }
+        }
+        ExecutorService sessions = platformThreads > 0 ? null : virtualThreads();
+        String mode = "virtual threads";
+        if (sessions == null) {
+            int threads = platformThreads > 0 ? platformThreads : 256;
+            sessions = Executors.newFixedThreadPool(threads);
+            mode = threads + " platform threads";
+        }
+        SessionServer server = start(new InetSocketAddress(port), sessions);
+        System.out.println("Listening on " + server.address() + " with " + mode);
+        Thread.currentThread().join();
+    }
+}
@@ -10,6 +10,14 @@ import java.util.Objects;
  * between indices and human-readable strings.
  */
 public final class Square {
+    private static final Square[] ALL = new Square[64];
+
+    static {
+        for (int index = 0; index < 64; index++) {
+            ALL[index] = new Square(index & 7, index >>> 3);
+        }
+    }
+
     private final int file; // 0..7 (a..h)
     private final int rank; // 0..7 (1..8)
 
@@ -19,11 +27,22 @@ public final class Square {
     }
 
     /**
-     * Factory for zero-based indices used internally by the engine.
+     * Factory for zero-based indices used internally by the engine. Squares are interned, so this
+     * never allocates.
      */
     public static Square of(int fileIndex, int rankIndex) {
         validateRange(fileIndex, rankIndex);
-        return new Square(fileIndex, rankIndex);
+        return ALL[(rankIndex << 3) | fileIndex];
+    }
+
+    /**
+     * Factory for a 0..63 square index as returned by {@link #index()}.
+     */
+    public static Square ofIndex(int index) {
+        if (index < 0 || index > 63) {
+            throw new IllegalArgumentException("Square index must be in 0..63: " + index);
+        }
+        return ALL[index];
     }
 
     /**
@@ -44,7 +63,7 @@ public final class Square {
         }
         int fileIndex = fileChar - 'a';
         int rankIndex = rankChar - '1';
-        return new Square(fileIndex, rankIndex);
+        return ALL[(rankIndex << 3) | fileIndex];
     }
 
     public int file() {
@@ -55,6 +74,13 @@ public final class Square {
         return rank;
     }
 
+    /**
+     * Returns the 0..63 square index (a1 = 0, h1 = 7, a8 = 56) used by bitboard storage.
+     */
+    public int index() {
+        return (rank << 3) | file;
+    }
+
     /**
      * Returns the algebraic file letter, e.g., 0 -> 'a'.
      */
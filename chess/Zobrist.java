@@ -0,0 +1,43 @@
+package chess;
+
+/**
+ * Random keys for Zobrist position hashing. A position's key is the XOR of one key per occupied
+ * (piece, square) pair, plus {@link #SIDE_TO_MOVE} when Black is to move, so adding or removing a
+ * piece updates it with a single XOR.
+ * <p>
+ * The keys come from a fixed-seed SplitMix64 sequence rather than {@link java.util.Random}, so the
+ * same position hashes to the same value in every JVM and in anything persisted with it.
+ */
+final class Zobrist {
+    private static final long SEED = 0x5EED_C0DE_2130_0001L;
+
+    private static final long[] PIECE_SQUARE = new long[12 * 64]; // [color * 6 + type][square]
+    static final long SIDE_TO_MOVE;
+
+    static {
+        long state = SEED;
+        for (int i = 0; i < PIECE_SQUARE.length; i++) {
+            state += 0x9E37_79B9_7F4A_7C15L;
+            PIECE_SQUARE[i] = mix(state);
+        }
+        state += 0x9E37_79B9_7F4A_7C15L;
+        SIDE_TO_MOVE = mix(state);
+    }
+
+    private Zobrist() {
+        // utility
+    }
+
+    /**
+     * Key for the given piece standing on the square with the given {@link Square#index()}.
+     */
+    static long piece(Piece piece, int index) {
+        return PIECE_SQUARE[((piece.color().ordinal() * 6 + piece.type().ordinal()) << 6) | index];
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58_476D_1CE4_E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D0_49BB_1331_11EBL;
+        return z ^ (z >>> 31);
+    }
+}
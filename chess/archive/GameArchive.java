@@ -0,0 +1,173 @@
+package chess.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import chess.Game;
+
+/**
+ * Read-only, memory-mapped view of a game archive directory written by {@link GameArchiveWriter}.
+ * <p>
+ * The directory holds two files. {@value #MOVES_FILE} is the magic {@code "CGM1"}, four reserved
+ * bytes, then every game's moves back to back, one big-endian short per ply in the
+ * {@link chess.PackedMove} layout (from 6 bits, to 6 bits, promotion 4 bits).
+ * {@value #INDEX_FILE} is the magic {@code "CGI1"}, four reserved bytes, then one long per game:
+ * the ply offset just past that game's last move, so game {@code id} spans
+ * {@code [end(id - 1), end(id))}. Every game starts from the initial position.
+ * <p>
+ * The archive is a snapshot of the games indexed when it was opened; games appended later need a
+ * new instance. Reads never change the mapping, so one instance can be shared by any number of
+ * threads. The moves file is mapped as a single buffer and so is limited to 2 GB (about a billion
+ * plies).
+ */
+public final class GameArchive {
+
+    static final String MOVES_FILE = "games.moves";
+    static final String INDEX_FILE = "games.index";
+    static final int MOVES_MAGIC = 0x43474D31; // "CGM1"
+    static final int INDEX_MAGIC = 0x43474931; // "CGI1"
+    static final int HEADER_BYTES = 8;
+
+    private final ShortBuffer moves;
+    private final LongBuffer ends;
+
+    private GameArchive(ShortBuffer moves, LongBuffer ends) {
+        this.moves = moves;
+        this.ends = ends;
+    }
+
+    /**
+     * Maps the archive in {@code directory}.
+     *
+     * @throws IOException if either file is missing, not an archive file, or the index refers to
+     *         moves past the end of the moves file.
+     */
+    public static GameArchive open(Path directory) throws IOException {
+        ByteBuffer index = map(directory.resolve(INDEX_FILE), INDEX_MAGIC);
+        ByteBuffer moves = map(directory.resolve(MOVES_FILE), MOVES_MAGIC);
+        LongBuffer ends = index.limit(index.limit() & ~7).asLongBuffer(); // ignore a torn last entry
+        ShortBuffer plies = moves.limit(moves.limit() & ~1).asShortBuffer();
+        long total = ends.limit() == 0 ? 0 : ends.get(ends.limit() - 1);
+        if (total > plies.limit()) {
+            throw new IOException("Archive index refers to " + total + " plies but only "
+                + plies.limit() + " are stored in " + directory);
+        }
+        return new GameArchive(plies, ends);
+    }
+
+    private static ByteBuffer map(Path path, int magic) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size - HEADER_BYTES > Integer.MAX_VALUE) {
+                throw new IOException("Not a game archive file (or larger than 2 GB): " + path);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (map.getInt(0) != magic) {
+                throw new IOException("Not a game archive file: " + path);
+            }
+            return map.slice(HEADER_BYTES, (int) (size - HEADER_BYTES));
+        }
+    }
+
+    /** Number of games in the archive. */
+    public int size() {
+        return ends.limit();
+    }
+
+    /** Total number of plies across all games. */
+    public long plies() {
+        return size() == 0 ? 0 : ends.get(size() - 1);
+    }
+
+    /**
+     * Number of plies in game {@code id}.
+     *
+     * @throws IllegalArgumentException if there is no such game.
+     */
+    public int length(int id) {
+        checkId(id);
+        return (int) (ends.get(id) - start(id));
+    }
+
+    /**
+     * Copies the packed moves of game {@code id} into {@code buffer} starting at {@code offset} and
+     * returns the index just past the last one written.
+     *
+     * @throws IllegalArgumentException if there is no such game.
+     * @throws IndexOutOfBoundsException if the buffer is too small for the game.
+     */
+    public int moves(int id, int[] buffer, int offset) {
+        checkId(id);
+        int from = start(id);
+        int to = (int) ends.get(id);
+        if (offset < 0 || buffer.length - offset < to - from) {
+            throw new IndexOutOfBoundsException("Game " + id + " has " + (to - from) + " plies");
+        }
+        for (int i = from; i < to; i++) {
+            buffer[offset++] = moves.get(i) & 0xFFFF;
+        }
+        return offset;
+    }
+
+    /** Packed moves of game {@code id}, oldest first. */
+    public int[] moves(int id) {
+        int[] buffer = new int[length(id)];
+        moves(id, buffer, 0);
+        return buffer;
+    }
+
+    /**
+     * Replays game {@code id} from the initial position and returns the resulting game.
+     *
+     * @throws IllegalArgumentException if there is no such game.
+     * @throws IllegalStateException if a stored move is not legal, i.e. the archive is corrupt.
+     */
+    public Game replay(int id) {
+        checkId(id);
+        Game game = new Game();
+        int to = (int) ends.get(id);
+        for (int i = start(id); i < to; i++) {
+            int move = moves.get(i) & 0xFFFF;
+            if (!game.tryPlay(move)) {
+                throw new IllegalStateException("Illegal move at ply " + (i - start(id)) + " of game " + id);
+            }
+        }
+        return game;
+    }
+
+    private int start(int id) {
+        return id == 0 ? 0 : (int) ends.get(id - 1);
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= size()) {
+            throw new IllegalArgumentException("No game " + id + " in an archive of " + size());
+        }
+    }
+
+    /**
+     * Usage: {@code java chess.archive.GameArchive <directory>} replays every game and reports the
+     * rate.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: GameArchive <directory>");
+            System.exit(2);
+        }
+        GameArchive archive = open(Path.of(args[0]));
+        long start = System.nanoTime();
+        for (int id = 0; id < archive.size(); id++) {
+            archive.replay(id);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println("Games: " + archive.size());
+        System.out.println("Plies: " + archive.plies());
+        System.out.printf("Replayed in %.2f s (%.0f plies/s)%n", seconds, archive.plies() / seconds);
+    }
+}
@@ -0,0 +1,213 @@
+package chess.archive;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import chess.Game;
+import chess.MoveParser;
+
+/**
+ * Appends games to a {@link GameArchive} directory, creating it if needed.
+ * <p>
+ * Moves are always written before the index entry that covers them, so a crash can only leave
+ * moves no game refers to or a partial index entry; {@link #open(Path)} cuts both off again.
+ * Appended games become visible to a newly opened {@link GameArchive} after {@link #flush()} or
+ * {@link #close()}. Not thread-safe.
+ * <p>
+ * Usage: {@code java chess.archive.GameArchiveWriter <directory> <games.txt>...} imports text
+ * games, one move line (e.g. "e2 e4") per line with a blank line between games. A game is cut at
+ * its first rejected line, resignation or draw offer.
+ */
+public final class GameArchiveWriter implements Closeable {
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final FileChannel moves;
+    private final FileChannel index;
+    private final ByteBuffer moveBuffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final ByteBuffer indexBuffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private long plies;
+    private int games;
+
+    private GameArchiveWriter(FileChannel moves, FileChannel index, long plies, int games) {
+        this.moves = moves;
+        this.index = index;
+        this.plies = plies;
+        this.games = games;
+    }
+
+    /**
+     * Opens the archive in {@code directory} for appending, creating the directory and both files
+     * if they do not exist.
+     *
+     * @throws IOException if the files cannot be opened or are not archive files.
+     */
+    public static GameArchiveWriter open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel moves = openFile(directory.resolve(GameArchive.MOVES_FILE), GameArchive.MOVES_MAGIC);
+        FileChannel index;
+        try {
+            index = openFile(directory.resolve(GameArchive.INDEX_FILE), GameArchive.INDEX_MAGIC);
+        } catch (IOException e) {
+            moves.close();
+            throw e;
+        }
+
+        try {
+            // Drop a torn index entry, then any moves past the last complete game.
+            int games = (int) ((index.size() - GameArchive.HEADER_BYTES) / Long.BYTES);
+            index.truncate(GameArchive.HEADER_BYTES + (long) games * Long.BYTES);
+            long plies = 0;
+            if (games > 0) {
+                ByteBuffer last = ByteBuffer.allocate(Long.BYTES);
+                index.read(last, index.size() - Long.BYTES);
+                plies = last.getLong(0);
+            }
+            long movesEnd = GameArchive.HEADER_BYTES + plies * Short.BYTES;
+            if (moves.size() < movesEnd) {
+                throw new IOException("Archive index refers to moves past the end of " + directory);
+            }
+            moves.truncate(movesEnd);
+            moves.position(movesEnd);
+            index.position(index.size());
+            return new GameArchiveWriter(moves, index, plies, games);
+        } catch (IOException e) {
+            moves.close();
+            index.close();
+            throw e;
+        }
+    }
+
+    private static FileChannel openFile(Path path, int magic) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(GameArchive.HEADER_BYTES);
+            if (channel.size() == 0) {
+                header.putInt(magic).putInt(0).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+            } else if (channel.read(header, 0) != GameArchive.HEADER_BYTES || header.getInt(0) != magic) {
+                throw new IOException("Not a game archive file: " + path);
+            }
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Number of games in the archive, including ones not yet flushed. */
+    public int size() {
+        return games;
+    }
+
+    /**
+     * Appends every move played in {@code game} through {@link Game#apply} and returns the new
+     * game's id. The game must have started from the initial position, not from a FEN.
+     */
+    public int append(Game game) throws IOException {
+        int[] history = game.history();
+        return append(history, history.length);
+    }
+
+    /**
+     * Appends the first {@code count} packed moves of {@code moves} as one game and returns its id.
+     * The moves are not validated; they must be a legal game from the initial position.
+     */
+    public int append(int[] moves, int count) throws IOException {
+        if (count < 0 || count > moves.length) {
+            throw new IllegalArgumentException("count out of range: " + count);
+        }
+        for (int i = 0; i < count; i++) {
+            if (!moveBuffer.hasRemaining()) {
+                flushMoves();
+            }
+            moveBuffer.putShort((short) moves[i]);
+        }
+        plies += count;
+        if (!indexBuffer.hasRemaining()) {
+            flush();
+        }
+        indexBuffer.putLong(plies);
+        return games++;
+    }
+
+    /**
+     * Writes buffered games to the files, moves first.
+     */
+    public void flush() throws IOException {
+        flushMoves();
+        indexBuffer.flip();
+        while (indexBuffer.hasRemaining()) {
+            index.write(indexBuffer);
+        }
+        indexBuffer.clear();
+    }
+
+    private void flushMoves() throws IOException {
+        moveBuffer.flip();
+        while (moveBuffer.hasRemaining()) {
+            moves.write(moveBuffer);
+        }
+        moveBuffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (moves; index) {
+            flush();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: GameArchiveWriter <directory> <games.txt>...");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        int before;
+        try (GameArchiveWriter writer = open(Path.of(args[0]))) {
+            before = writer.size();
+            for (int i = 1; i < args.length; i++) {
+                try (BufferedReader in = Files.newBufferedReader(Path.of(args[i]), StandardCharsets.UTF_8)) {
+                    Game game = null;
+                    boolean over = false;
+                    for (String line = in.readLine(); ; line = in.readLine()) {
+                        if (line == null || line.isBlank()) {
+                            if (game != null) {
+                                writer.append(game);
+                                game = null;
+                            }
+                            if (line == null) break;
+                            continue;
+                        }
+                        if (game == null) {
+                            game = new Game();
+                            over = false;
+                        }
+                        if (!over) {
+                            // Only moves are stored: a resignation or draw offer ends the game.
+                            int parsed = MoveParser.parsePacked(line);
+                            over = parsed < 0 || parsed == MoveParser.RESIGN
+                                || !game.tryPlay(parsed & 0xFFFF)
+                                || (parsed & MoveParser.DRAW_OFFER) != 0
+                                || game.isGameOver();
+                        }
+                    }
+                }
+            }
+            System.out.println("Games appended: " + (writer.size() - before));
+            System.out.println("Games in archive: " + writer.size());
+        }
+        System.out.printf("Done in %.2f s%n", (System.nanoTime() - start) / 1e9);
+    }
+}
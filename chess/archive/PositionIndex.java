@@ -0,0 +1,168 @@
+package chess.archive;
+
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import chess.Game;
+
+/**
+ * Memory-mapped lookup from a {@link Game#positionKey()} to every (game, ply) in a
+ * {@link GameArchive} where that position occurred, built by {@link PositionIndexBuilder}.
+ * <p>
+ * File layout, all big-endian: the magic {@code "CPI1"}, a reserved int, the key count K and the
+ * posting count P as longs, then four long sections. Fences hold every {@value #BLOCK_KEYS}th key;
+ * keys hold the K distinct position keys in unsigned order; starts hold K + 1 offsets into the
+ * postings; and each posting is {@code gameId << 32 | ply}, in game then ply order for its key.
+ * Ply 0 is the initial position, so ply n is the position after n moves.
+ * <p>
+ * The fences are read onto the heap when the index is opened. A lookup binary-searches them, then
+ * searches one 4 KB block of keys. Sections follow each other without padding, so a block is not
+ * page-aligned and usually spans two pages; with the starts and postings a cold probe touches
+ * about four mapped pages however large the index is. Each section is mapped as one buffer and so
+ * holds at most {@value #MAX_SECTION_ENTRIES} (2<sup>28</sup> - 1) entries. Lookups never change the mapping, so one instance can be shared by any
+ * number of threads.
+ */
+public final class PositionIndex {
+
+    static final int MAGIC = 0x43504931; // "CPI1"
+    static final int HEADER_BYTES = 24;
+    /** Keys per sorted block: 4 KB of longs. */
+    static final int BLOCK_KEYS = 512;
+    /** Most entries one section can hold, as a single mapped buffer is limited to 2 GB. */
+    static final int MAX_SECTION_ENTRIES = Integer.MAX_VALUE / Long.BYTES;
+
+    /** One occurrence of a position: the archive game id and the ply it was reached at. */
+    public record Posting(int gameId, int ply) { }
+
+    private final long[] fences;
+    private final LongBuffer keys;
+    private final LongBuffer starts;
+    private final LongBuffer postings;
+
+    private PositionIndex(long[] fences, LongBuffer keys, LongBuffer starts, LongBuffer postings) {
+        this.fences = fences;
+        this.keys = keys;
+        this.starts = starts;
+        this.postings = postings;
+    }
+
+    /**
+     * Maps the index file at {@code path}.
+     *
+     * @throws IOException if the file cannot be read or is not a position index.
+     */
+    public static PositionIndex open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("Not a position index file: " + path);
+            }
+            LongBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).asLongBuffer();
+            long keyCount = header.get(1);
+            long postingCount = header.get(2);
+            long fenceCount = fenceCount(keyCount);
+            if ((int) (header.get(0) >>> 32) != MAGIC || keyCount < 0 || postingCount < 0
+                    || channel.size() != HEADER_BYTES + Long.BYTES * (fenceCount + 2 * keyCount + 1 + postingCount)) {
+                throw new IOException("Not a position index file: " + path);
+            }
+            long offset = HEADER_BYTES;
+            LongBuffer fenceMap = map(channel, offset, fenceCount, path);
+            offset += fenceCount * Long.BYTES;
+            LongBuffer keys = map(channel, offset, keyCount, path);
+            offset += keyCount * Long.BYTES;
+            LongBuffer starts = map(channel, offset, keyCount + 1, path);
+            offset += (keyCount + 1) * Long.BYTES;
+            LongBuffer postings = map(channel, offset, postingCount, path);
+
+            long[] fences = new long[(int) fenceCount];
+            fenceMap.get(fences);
+            return new PositionIndex(fences, keys, starts, postings);
+        }
+    }
+
+    static long fenceCount(long keyCount) {
+        return (keyCount + BLOCK_KEYS - 1) / BLOCK_KEYS;
+    }
+
+    static String tooLarge(Path path) {
+        return "Position index section too large to map: " + path;
+    }
+
+    private static LongBuffer map(FileChannel channel, long offset, long count, Path path) throws IOException {
+        if (count > MAX_SECTION_ENTRIES) {
+            throw new IOException(tooLarge(path));
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, count * Long.BYTES).asLongBuffer();
+    }
+
+    /** Number of distinct positions in the index. */
+    public int positions() {
+        return keys.limit();
+    }
+
+    /** Total number of (game, ply) postings in the index. */
+    public int postings() {
+        return postings.limit();
+    }
+
+    /** Number of times the position with {@code key} was reached across all games. */
+    public int count(long key) {
+        int slot = slot(key);
+        return slot < 0 ? 0 : (int) (starts.get(slot + 1) - starts.get(slot));
+    }
+
+    /** Every (game, ply) where the position with {@code key} was reached, in game then ply order. */
+    public List<Posting> find(long key) {
+        int slot = slot(key);
+        if (slot < 0) {
+            return List.of();
+        }
+        int from = (int) starts.get(slot);
+        int to = (int) starts.get(slot + 1);
+        List<Posting> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            long posting = postings.get(i);
+            result.add(new Posting((int) (posting >>> 32), (int) posting));
+        }
+        return result;
+    }
+
+    /** Every (game, ply) where the game's current position was reached. */
+    public List<Posting> find(Game game) {
+        return find(game.positionKey());
+    }
+
+    /** Index of {@code key} among the sorted keys, or -1 if it is not in the index. */
+    private int slot(long key) {
+        // Last block whose first key is <= key.
+        int lo = 0;
+        int hi = fences.length - 1;
+        int block = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Long.compareUnsigned(fences[mid], key) <= 0) {
+                block = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        if (block < 0) {
+            return -1;
+        }
+        lo = block * BLOCK_KEYS;
+        hi = Math.min(lo + BLOCK_KEYS, keys.limit()) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = Long.compareUnsigned(keys.get(mid), key);
+            if (cmp == 0) return mid;
+            if (cmp < 0) lo = mid + 1;
+            else hi = mid - 1;
+        }
+        return -1;
+    }
+}
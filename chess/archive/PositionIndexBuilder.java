@@ -0,0 +1,179 @@
+package chess.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import chess.Game;
+
+/**
+ * Builds a {@link PositionIndex} file for a {@link GameArchive}.
+ * <p>
+ * Games are split into chunks that are replayed in parallel on a fork-join pool, each with its own
+ * {@link Game}, recording {@link Game#positionKey()} before the first move and after every move.
+ * The chunks are concatenated in game order and sorted with a stable radix sort on the key, which
+ * leaves each key's postings in game then ply order without comparing them. The whole index is
+ * built on the heap, about 32 bytes per ply, then written in one pass.
+ * <p>
+ * Usage: {@code java chess.archive.PositionIndexBuilder <archive directory> <out.index>}.
+ */
+public final class PositionIndexBuilder {
+
+    private static final int CHUNK_GAMES = 256;
+    private static final int RADIX_BITS = 16;
+
+    private PositionIndexBuilder() {
+        // utility
+    }
+
+    /**
+     * Indexes every game in {@code archive} using the common fork-join pool and writes the result
+     * to {@code path}, replacing any existing file.
+     */
+    public static void build(GameArchive archive, Path path) throws IOException {
+        build(archive, path, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Indexes every game in {@code archive} on {@code pool} and writes the result to {@code path}.
+     *
+     * @throws IllegalArgumentException if the archive has more positions than
+     *         {@link PositionIndex#open} can map.
+     */
+    public static void build(GameArchive archive, Path path, ForkJoinPool pool) throws IOException {
+        long total = archive.plies() + archive.size(); // one posting per move plus the start position
+        if (total + 1 > PositionIndex.MAX_SECTION_ENTRIES) { // starts holds one more entry than keys
+            throw new IllegalArgumentException(PositionIndex.tooLarge(path));
+        }
+        int chunks = (archive.size() + CHUNK_GAMES - 1) / CHUNK_GAMES;
+        List<long[][]> parts = pool.submit(() -> IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> replay(archive, chunk * CHUNK_GAMES,
+                                          Math.min(archive.size(), (chunk + 1) * CHUNK_GAMES)))
+                .collect(Collectors.toList()))
+            .join();
+
+        long[] keys = new long[(int) total];
+        long[] postings = new long[(int) total];
+        int n = 0;
+        for (long[][] part : parts) {
+            System.arraycopy(part[0], 0, keys, n, part[0].length);
+            System.arraycopy(part[1], 0, postings, n, part[1].length);
+            n += part[0].length;
+        }
+        sort(keys, postings);
+        write(keys, postings, path);
+    }
+
+    /** Replays games {@code [from, to)} and returns their {keys, postings}. */
+    private static long[][] replay(GameArchive archive, int from, int to) {
+        int size = 0;
+        for (int id = from; id < to; id++) {
+            size += archive.length(id) + 1;
+        }
+        long[] keys = new long[size];
+        long[] postings = new long[size];
+        int[] moves = new int[64];
+        int n = 0;
+        for (int id = from; id < to; id++) {
+            int length = archive.length(id);
+            if (moves.length < length) {
+                moves = new int[Math.max(length, moves.length * 2)];
+            }
+            archive.moves(id, moves, 0);
+            Game game = new Game();
+            for (int ply = 0; ; ply++) {
+                keys[n] = game.positionKey();
+                postings[n++] = ((long) id << 32) | ply;
+                if (ply == length) break;
+                if (!game.tryPlay(moves[ply])) {
+                    throw new IllegalStateException("Illegal move at ply " + ply + " of game " + id);
+                }
+            }
+        }
+        return new long[][] {keys, postings};
+    }
+
+    /**
+     * Stable LSD radix sort of both arrays by unsigned key, {@value #RADIX_BITS} bits per pass.
+     */
+    private static void sort(long[] keys, long[] postings) {
+        long[] keysOut = new long[keys.length];
+        long[] postingsOut = new long[postings.length];
+        int[] offsets = new int[(1 << RADIX_BITS) + 1];
+        for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+            Arrays.fill(offsets, 0);
+            for (long key : keys) {
+                offsets[digit(key, shift) + 1]++;
+            }
+            for (int d = 0; d < 1 << RADIX_BITS; d++) {
+                offsets[d + 1] += offsets[d];
+            }
+            for (int i = 0; i < keys.length; i++) {
+                int at = offsets[digit(keys[i], shift)]++;
+                keysOut[at] = keys[i];
+                postingsOut[at] = postings[i];
+            }
+            // An even number of passes, so the sorted data ends up back in the caller's arrays.
+            long[] swap = keys;
+            keys = keysOut;
+            keysOut = swap;
+            swap = postings;
+            postings = postingsOut;
+            postingsOut = swap;
+        }
+    }
+
+    private static int digit(long key, int shift) {
+        return (int) (key >>> shift) & ((1 << RADIX_BITS) - 1);
+    }
+
+    private static void write(long[] keys, long[] postings, Path path) throws IOException {
+        int distinct = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (i == 0 || keys[i] != keys[i - 1]) distinct++;
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(PositionIndex.MAGIC);
+            out.writeInt(0);
+            out.writeLong(distinct);
+            out.writeLong(postings.length);
+            for (int i = 0, k = 0; i < keys.length; i++) { // fences
+                if (i == 0 || keys[i] != keys[i - 1]) {
+                    if (k++ % PositionIndex.BLOCK_KEYS == 0) out.writeLong(keys[i]);
+                }
+            }
+            for (int i = 0; i < keys.length; i++) {
+                if (i == 0 || keys[i] != keys[i - 1]) out.writeLong(keys[i]);
+            }
+            for (int i = 0; i < keys.length; i++) { // starts
+                if (i == 0 || keys[i] != keys[i - 1]) out.writeLong(i);
+            }
+            out.writeLong(keys.length);
+            for (long posting : postings) {
+                out.writeLong(posting);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: PositionIndexBuilder <archive directory> <out.index>");
+            System.exit(2);
+        }
+        GameArchive archive = GameArchive.open(Path.of(args[0]));
+        long start = System.nanoTime();
+        build(archive, Path.of(args[1]));
+        PositionIndex index = PositionIndex.open(Path.of(args[1]));
+        System.out.println("Games: " + archive.size());
+        System.out.println("Positions: " + index.positions());
+        System.out.println("Postings: " + index.postings());
+        System.out.printf("Built in %.2f s%n", (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,154 @@
+package chess.book;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+import chess.Game;
+import chess.Move;
+import chess.PackedMove;
+
+/**
+ * Read-only opening book backed by a memory-mapped file, as written by {@link OpeningBookWriter}.
+ * <p>
+ * File layout (big-endian): the magic {@code "CBK1"}, the entry count as an int, then fixed
+ * 12-byte entries sorted by position key: the {@link Game#positionKey()} (8 bytes), the move as the
+ * low 16 bits of a {@link PackedMove} (2 bytes) and an unsigned weight (2 bytes). The entries of
+ * one position are adjacent and ordered by descending weight.
+ * <p>
+ * Nothing is parsed onto the heap: a lookup binary-searches the mapped pages directly, so every
+ * session (and every JVM on the host) shares the OS page cache copy. Lookups only use absolute
+ * reads, so one instance can be shared by any number of threads.
+ */
+public final class OpeningBook {
+
+    static final int MAGIC = 0x43424B31; // "CBK1"
+    static final int HEADER_BYTES = 8;
+    static final int ENTRY_BYTES = 12;
+
+    /**
+     * One book move for a position and its relative weight (e.g. how often it was played).
+     */
+    public record BookMove(Move move, int weight) { }
+
+    private final ByteBuffer entries;
+    private final int size;
+
+    private OpeningBook(ByteBuffer entries, int size) {
+        this.entries = entries;
+        this.size = size;
+    }
+
+    /**
+     * Maps the book at {@code path}. The file stays mapped until the book is garbage collected.
+     *
+     * @throws IOException if the file cannot be read or is not a book.
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_BYTES || length > Integer.MAX_VALUE) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            int count = map.getInt(4);
+            if (map.getInt(0) != MAGIC || count < 0 || HEADER_BYTES + (long) count * ENTRY_BYTES != length) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            return new OpeningBook(map.slice(HEADER_BYTES, count * ENTRY_BYTES), count);
+        }
+    }
+
+    /** Number of (position, move) entries. */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Book moves for the game's current position, highest weight first; empty if the position is
+     * not in the book. Every move returned is legal in the position, so it can be played with
+     * {@link Game#apply} as a {@link chess.Command.MoveCommand}.
+     */
+    public List<BookMove> candidates(Game game) {
+        int first = firstIndex(game.positionKey());
+        if (first < 0) {
+            return List.of();
+        }
+        int[] legal = new int[Game.MAX_MOVES];
+        int legalCount = game.legalMoves(legal, 0);
+        long key = game.positionKey();
+        List<BookMove> out = new ArrayList<>(4);
+        for (int i = first; i < size && keyAt(i) == key; i++) {
+            int move = moveAt(i);
+            if (contains(legal, legalCount, move)) {
+                out.add(new BookMove(PackedMove.toMove(move), weightAt(i)));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Picks a book move for the game's current position at random in proportion to the weights, or
+     * returns null if the position is not in the book.
+     */
+    public Move pick(Game game, RandomGenerator random) {
+        List<BookMove> moves = candidates(game);
+        long total = 0;
+        for (BookMove m : moves) {
+            total += m.weight();
+        }
+        if (total == 0) {
+            return moves.isEmpty() ? null : moves.get(0).move();
+        }
+        long roll = random.nextLong(total);
+        for (BookMove m : moves) {
+            roll -= m.weight();
+            if (roll < 0) {
+                return m.move();
+            }
+        }
+        return moves.get(moves.size() - 1).move();
+    }
+
+    /**
+     * Index of the first entry for {@code key}, or -1 if there is none.
+     */
+    private int firstIndex(long key) {
+        int lo = 0;
+        int hi = size; // first index whose key is >= the target lies in [lo, hi]
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Long.compareUnsigned(keyAt(mid), key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo < size && keyAt(lo) == key ? lo : -1;
+    }
+
+    private long keyAt(int i) {
+        return entries.getLong(i * ENTRY_BYTES);
+    }
+
+    private int moveAt(int i) {
+        return entries.getShort(i * ENTRY_BYTES + 8) & 0xFFFF;
+    }
+
+    private int weightAt(int i) {
+        return entries.getShort(i * ENTRY_BYTES + 10) & 0xFFFF;
+    }
+
+    private static boolean contains(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,172 @@
+package chess.book;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import chess.Game;
+import chess.Move;
+import chess.MoveParser;
+import chess.PackedMove;
+import chess.PgnReader;
+import chess.PieceType;
+
+/**
+ * Collects (position, move) pairs with weights and writes them in the {@link OpeningBook} format.
+ * Adding the same move for the same position again adds to its weight; weights are capped at
+ * 65535 when written.
+ * <p>
+ * Usage: {@code java chess.book.OpeningBookWriter <games.pgn> <out.book> [maxPlies]} builds a
+ * book from the first {@code maxPlies} plies (default 16) of every game, weighted by how often
+ * each move was played.
+ */
+public final class OpeningBookWriter {
+
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    // Per position key: packed move -> accumulated weight.
+    private final Map<Long, Map<Integer, Long>> positions = new HashMap<>();
+
+    /**
+     * Adds {@code weight} to the move in the game's current position. The game is not changed.
+     *
+     * @throws IllegalArgumentException if the move is not legal in the position or the weight is
+     *         negative.
+     */
+    public void add(Game game, Move move, int weight) {
+        int packed = PackedMove.of(move);
+        if (legalMove(game, packed) != packed) {
+            throw new IllegalArgumentException("Not a legal move in this position: " + move);
+        }
+        add(game.positionKey(), packed, weight);
+    }
+
+    /**
+     * Adds {@code weight} for a packed move under a raw {@link Game#positionKey()}.
+     */
+    public void add(long positionKey, int packedMove, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must not be negative: " + weight);
+        }
+        positions.computeIfAbsent(positionKey, k -> new HashMap<>(4))
+                 .merge(packedMove & 0xFFFF, (long) weight, Long::sum);
+    }
+
+    /**
+     * Replays a game given as move lines (e.g. "e2 e4") and adds weight 1 for each of its first
+     * {@code maxPlies} moves. Stops early at the first line that is not a legal move.
+     */
+    public void addLine(List<String> moves, int maxPlies) {
+        Game game = new Game();
+        for (int i = 0; i < moves.size() && i < maxPlies; i++) {
+            int parsed = MoveParser.parsePacked(moves.get(i));
+            int move = parsed < 0 || parsed == MoveParser.RESIGN ? -1 : legalMove(game, parsed & 0xFFFF);
+            if (move < 0) {
+                return;
+            }
+            add(game.positionKey(), move, 1);
+            game.apply(move);
+        }
+    }
+
+    /**
+     * Reads every game from a PGN source and adds weight 1 for each of its first {@code maxPlies}
+     * moves. Returns the number of games read.
+     */
+    public long addPgn(Reader pgn, int maxPlies) throws IOException {
+        PgnReader reader = new PgnReader(pgn);
+        return reader.readAll(new PgnReader.Handler() {
+            private int ply;
+
+            @Override
+            public void startGame() {
+                ply = 0;
+            }
+
+            @Override
+            public void move(long positionKey, int move) {
+                if (ply++ < maxPlies) {
+                    add(positionKey, move, 1);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the legal move matching {@code packed} in the game's position, auto-queening a pawn
+     * move to the last rank that names no piece as {@link Game#apply} does, or -1 if there is none.
+     */
+    private static int legalMove(Game game, int packed) {
+        int[] legal = new int[Game.MAX_MOVES];
+        int count = game.legalMoves(legal, 0);
+        int queening = PackedMove.isPromotion(packed) ? -1
+            : PackedMove.promotion(PackedMove.from(packed), PackedMove.to(packed), PieceType.QUEEN);
+        int match = -1;
+        for (int i = 0; i < count; i++) {
+            if (legal[i] == packed) return packed;
+            if (legal[i] == queening) match = queening;
+        }
+        return match;
+    }
+
+    /** Number of distinct (position, move) entries collected so far. */
+    public int size() {
+        int n = 0;
+        for (Map<Integer, Long> moves : positions.values()) {
+            n += moves.size();
+        }
+        return n;
+    }
+
+    /**
+     * Writes the collected entries to {@code path}, replacing any existing file.
+     */
+    public void write(Path path) throws IOException {
+        List<long[]> entries = new ArrayList<>(size()); // {key, move, weight}
+        for (Map.Entry<Long, Map<Integer, Long>> position : positions.entrySet()) {
+            for (Map.Entry<Integer, Long> move : position.getValue().entrySet()) {
+                entries.add(new long[] {position.getKey(), move.getKey(), Math.min(move.getValue(), MAX_WEIGHT)});
+            }
+        }
+        entries.sort((a, b) -> {
+            int byKey = Long.compareUnsigned(a[0], b[0]); // the order OpeningBook searches in
+            if (byKey != 0) return byKey;
+            int byWeight = Long.compare(b[2], a[2]);
+            return byWeight != 0 ? byWeight : Long.compare(a[1], b[1]);
+        });
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(entries.size());
+            for (long[] e : entries) {
+                out.writeLong(e[0]);
+                out.writeShort((int) e[1]);
+                out.writeShort((int) e[2]);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: OpeningBookWriter <games.pgn> <out.book> [maxPlies]");
+            System.exit(2);
+        }
+        int maxPlies = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        OpeningBookWriter writer = new OpeningBookWriter();
+        long games;
+        try (Reader in = Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            games = writer.addPgn(in, maxPlies);
+        }
+        writer.write(Path.of(args[1]));
+        System.out.println("Games: " + games);
+        System.out.println("Entries: " + writer.size());
+    }
+}
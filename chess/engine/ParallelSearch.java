@@ -0,0 +1,111 @@
+package chess.engine;
+
+import chess.Game;
+
+/**
+ * Lazy SMP: several threads search the same root position at once and share nothing but a
+ * {@link TranspositionTable}.
+ * <p>
+ * The calling thread runs the main {@link Search} under the caller's limits, and its result is the
+ * one returned. Each helper works on its own {@link Game#copy()} with no limits of its own; odd
+ * helpers search one ply deeper per iteration than even ones, so the threads spread over
+ * neighbouring depths rather than repeating each other's work. What a helper learns reaches the
+ * main search through table cutoffs and move ordering. Helpers are stopped as soon as the main
+ * search returns, and the reported node count covers every thread.
+ */
+public final class ParallelSearch {
+
+    private static final int DEFAULT_TABLE_ENTRIES = 1 << 20;
+
+    private final int threads;
+    private final TranspositionTable table;
+    private volatile Search main;
+
+    /** Search on {@code threads} threads with a shared table of 1M entries (16 MB). */
+    public ParallelSearch(int threads) {
+        this(threads, new TranspositionTable(DEFAULT_TABLE_ENTRIES));
+    }
+
+    /** Search on {@code threads} threads (including the caller) sharing the supplied table. */
+    public ParallelSearch(int threads, TranspositionTable table) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        this.threads = threads;
+        this.table = table;
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    public TranspositionTable table() {
+        return table;
+    }
+
+    /**
+     * Searches the game's current position within the given limits. The game is used by the
+     * calling thread only and is left in the position it started from.
+     */
+    public SearchResult search(Game game, SearchLimits limits) {
+        Search search = new Search(game, table);
+        main = search;
+        Search[] helpers = new Search[threads - 1];
+        Thread[] workers = new Thread[threads - 1];
+        long[] helperNodes = new long[threads - 1];
+        SearchLimits unlimited = SearchLimits.depth(Search.MAX_PLY);
+        for (int i = 0; i < helpers.length; i++) {
+            Search helper = new Search(game.copy(), table, (i + 1) & 1);
+            int slot = i;
+            helpers[i] = helper;
+            workers[i] = new Thread(() -> helperNodes[slot] = helper.search(unlimited).nodes(),
+                "lazy-smp-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+
+        SearchResult result;
+        try {
+            result = search.search(limits);
+        } finally {
+            main = null;
+            for (Search helper : helpers) {
+                helper.stop();
+            }
+            joinAll(workers);
+        }
+
+        long nodes = result.nodes();
+        for (long n : helperNodes) {
+            nodes += n;
+        }
+        return new SearchResult(result.bestMove(), result.score(), result.depth(), nodes, result.nanos());
+    }
+
+    /**
+     * Asks a running {@link #search} to return as soon as possible. Safe to call from any thread.
+     */
+    public void stop() {
+        Search search = main;
+        if (search != null) {
+            search.stop();
+        }
+    }
+
+    private static void joinAll(Thread[] workers) {
+        boolean interrupted = false;
+        for (Thread worker : workers) {
+            while (true) {
+                try {
+                    worker.join();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package chess.engine;
+
+import chess.Game;
+import chess.PackedMove;
+import chess.Piece;
+
+/**
+ * Negamax alpha-beta search with iterative deepening over a {@link Game}.
+ * <p>
+ * The tree is walked with {@link Game#makeMove(int)} / {@link Game#unmakeMove()} on the game's own
+ * legal move generator, so the game is left in the position it started from. Each iteration is
+ * searched to a fixed depth, with the previous iteration's best move tried first, captures
+ * ordered most-valuable-victim first and two killer moves per ply. Leaves are resolved with a
+ * quiescence search over captures and promotions, or over every evasion when in check. A
+ * {@link TranspositionTable}, which may be shared with other searches, supplies cutoffs and a
+ * first move to try. A node or time budget, or {@link #stop()} from another thread, ends the
+ * search early.
+ * <p>
+ * Scores are in centipawns from the side to move's point of view; mates are reported as
+ * {@link #MATE} minus the distance in plies. Leaves are scored with {@link Game#evaluate()}.
+ * <p>
+ * Instances are not thread-safe apart from {@link #stop()}. Reuse one per game to avoid
+ * reallocating the move stack.
+ */
+public final class Search {
+
+    /** Score of mate at the root; mate in n plies scores {@code MATE - n}. */
+    public static final int MATE = 30_000;
+
+    /** Deepest ply the search (including quiescence) will reach. */
+    public static final int MAX_PLY = 64;
+
+    private static final int INFINITY = 32_000;
+    private static final int CLOCK_INTERVAL = 1024; // nodes between reads of the clock
+
+    // Indexed by PieceType ordinal: KING, QUEEN, ROOK, BISHOP, KNIGHT, PAWN.
+    private static final int[] VALUE = {0, 900, 500, 330, 320, 100};
+    private static final int[] ATTACKER = {2000, 900, 500, 330, 320, 100};
+
+    private static final int DEFAULT_TABLE_ENTRIES = 1 << 16;
+
+    private static final int PREVIOUS_BEST = 1_000_000;
+    private static final int CAPTURE = 100_000;
+    private static final int KILLER = 90_000;
+
+    private final Game game;
+    private final TranspositionTable table;
+    private final int depthOffset;
+    private final int[] moves = new int[(MAX_PLY + 1) * Game.MAX_MOVES];
+    private final int[] scores = new int[moves.length];
+    private final int[][] killers = new int[MAX_PLY][2];
+
+    private volatile boolean stopRequested;
+    private boolean aborted;
+    private long nodes;
+    private long maxNodes;
+    private long maxNanos;
+    private long startNanos;
+
+    private int rootBest;
+    private int rootMovesSearched;
+
+    /** Search with a private transposition table of 64K entries. */
+    public Search(Game game) {
+        this(game, new TranspositionTable(DEFAULT_TABLE_ENTRIES));
+    }
+
+    /** Search using the supplied (possibly shared) transposition table. */
+    public Search(Game game, TranspositionTable table) {
+        this(game, table, 0);
+    }
+
+    /**
+     * Helper search for {@link ParallelSearch}: each iteration goes {@code depthOffset} plies deeper
+     * than the iteration number, so helpers spread over neighbouring depths.
+     */
+    Search(Game game, TranspositionTable table, int depthOffset) {
+        this.game = game;
+        this.table = table;
+        this.depthOffset = depthOffset;
+    }
+
+    /**
+     * Searches the game's current position within the given limits and returns the best move of
+     * the deepest iteration. A partly searched iteration still counts if its first root move (the
+     * previous best) finished.
+     */
+    public SearchResult search(SearchLimits limits) {
+        try {
+            return iterate(limits);
+        } finally {
+            stopRequested = false;
+        }
+    }
+
+    /**
+     * Asks a running {@link #search} to return as soon as possible. Safe to call from any thread; a
+     * stop that arrives before the search starts makes it return at once with the first legal move.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    private SearchResult iterate(SearchLimits limits) {
+        startNanos = System.nanoTime();
+        maxNodes = limits.maxNodes();
+        maxNanos = limits.maxNanos();
+        nodes = 0;
+        aborted = false;
+        for (int[] k : killers) {
+            k[0] = -1;
+            k[1] = -1;
+        }
+
+        int rootEnd = game.isGameOver() ? 0 : game.legalMoves(moves, 0);
+        if (rootEnd == 0) {
+            int score = game.inCheck() ? -MATE : 0;
+            return new SearchResult(null, score, 0, 0, System.nanoTime() - startNanos);
+        }
+
+        int best = moves[0];
+        int bestScore = 0;
+        int completedDepth = 0;
+        for (int depth = 1; depth <= limits.maxDepth(); depth++) {
+            int score = searchRoot(Math.min(depth + depthOffset, MAX_PLY), rootEnd, best);
+            if (rootMovesSearched > 0) {
+                best = rootBest;
+                bestScore = score;
+            }
+            if (aborted) {
+                break;
+            }
+            completedDepth = depth;
+            if (MATE - Math.abs(score) <= depth) {
+                break; // mate within the full-width depth: no shorter one is left to find
+            }
+        }
+        return new SearchResult(PackedMove.toMove(best), bestScore, completedDepth, nodes,
+            System.nanoTime() - startNanos);
+    }
+
+    private int searchRoot(int depth, int end, int previousBest) {
+        scoreMoves(0, end, previousBest, -1, -1);
+        rootBest = previousBest;
+        rootMovesSearched = 0;
+        int alpha = -INFINITY;
+        for (int i = 0; i < end; i++) {
+            pickMove(i, end);
+            int move = moves[i];
+            game.makeMove(move);
+            int score = -negamax(depth - 1, -INFINITY, -alpha, 1, end);
+            game.unmakeMove();
+            if (aborted) {
+                break;
+            }
+            rootMovesSearched++;
+            if (score > alpha) {
+                alpha = score;
+                rootBest = move;
+            }
+        }
+        return alpha;
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply, int offset) {
+        boolean inCheck = game.inCheck();
+        if (inCheck) {
+            depth++; // check extension: resolve forcing sequences before the horizon
+        }
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return quiesce(alpha, beta, ply, offset);
+        }
+        if (countNode()) {
+            return 0;
+        }
+
+        long key = game.positionKey();
+        long entry = table.probe(key);
+        int tableMove = 0;
+        if (entry != 0) {
+            tableMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int end = game.legalMoves(moves, offset);
+        if (end == offset) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        int[] killer = killers[ply];
+        scoreMoves(offset, end, tableMove, killer[0], killer[1]);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = 0;
+        for (int i = offset; i < end; i++) {
+            pickMove(i, end);
+            int move = moves[i];
+            game.makeMove(move);
+            int score = -negamax(depth - 1, -beta, -alpha, ply + 1, end);
+            game.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        if (!isTactical(move) && killer[0] != move) {
+                            killer[1] = killer[0];
+                            killer[0] = move;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        int bound = best >= beta ? TranspositionTable.LOWER
+                  : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bestMove, toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    /**
+     * Mate scores are stored relative to the node rather than the root, so an entry stays correct
+     * when the position is reached at a different ply.
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score + ply;
+        if (score <= -(MATE - MAX_PLY)) return score - ply;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score - ply;
+        if (score <= -(MATE - MAX_PLY)) return score + ply;
+        return score;
+    }
+
+    /**
+     * Searches captures and promotions only until the position is quiet, so the evaluation is
+     * never taken in the middle of an exchange. A side in check may not stand pat: every evasion is
+     * searched, and having none is mate. Otherwise only tactical moves are generated, so stalemate
+     * is not detected here.
+     */
+    private int quiesce(int alpha, int beta, int ply, int offset) {
+        if (countNode()) {
+            return 0;
+        }
+        int end;
+        if (game.inCheck()) {
+            end = game.legalMoves(moves, offset);
+            if (end == offset) {
+                return -MATE + ply;
+            }
+            if (ply >= MAX_PLY) {
+                return game.evaluate();
+            }
+        } else {
+            int standPat = game.evaluate();
+            if (standPat >= beta || ply >= MAX_PLY) {
+                return standPat;
+            }
+            if (standPat > alpha) {
+                alpha = standPat;
+            }
+            end = game.tacticalMoves(moves, offset);
+        }
+        scoreMoves(offset, end, -1, -1, -1);
+
+        for (int i = offset; i < end; i++) {
+            pickMove(i, end);
+            game.makeMove(moves[i]);
+            int score = -quiesce(-beta, -alpha, ply + 1, end);
+            game.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+            if (score > alpha) {
+                alpha = score;
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Counts a node and returns true once the search has to stop. The clock is only read every
+     * {@link #CLOCK_INTERVAL} nodes.
+     */
+    private boolean countNode() {
+        if (aborted) {
+            return true;
+        }
+        nodes++;
+        if (nodes >= maxNodes || stopRequested
+                || ((nodes & (CLOCK_INTERVAL - 1)) == 0 && System.nanoTime() - startNanos >= maxNanos)) {
+            aborted = true;
+        }
+        return aborted;
+    }
+
+    private boolean isTactical(int move) {
+        return PackedMove.isPromotion(move) || game.pieceOn(PackedMove.to(move)) != null;
+    }
+
+    /**
+     * Orders moves for {@link #pickMove}: {@code first} (the previous or table best move), then
+     * captures and promotions by victim and attacker value, then killers, then quiet moves.
+     */
+    private void scoreMoves(int start, int end, int first, int killer1, int killer2) {
+        for (int i = start; i < end; i++) {
+            int m = moves[i];
+            int score;
+            if (m == first) {
+                score = PREVIOUS_BEST;
+            } else {
+                Piece victim = game.pieceOn(PackedMove.to(m));
+                if (victim != null || PackedMove.isPromotion(m)) {
+                    score = CAPTURE - ATTACKER[game.pieceOn(PackedMove.from(m)).type().ordinal()] / 10;
+                    if (victim != null) score += VALUE[victim.type().ordinal()] * 10;
+                    if (PackedMove.isPromotion(m)) score += VALUE[PackedMove.promotion(m).ordinal()];
+                } else if (m == killer1) {
+                    score = KILLER;
+                } else if (m == killer2) {
+                    score = KILLER - 1;
+                } else {
+                    score = 0;
+                }
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Selection step: swaps the highest-scored move in [i, end) into slot i.
+     */
+    private void pickMove(int i, int end) {
+        int best = i;
+        for (int j = i + 1; j < end; j++) {
+            if (scores[j] > scores[best]) best = j;
+        }
+        if (best != i) {
+            int m = moves[i];
+            moves[i] = moves[best];
+            moves[best] = m;
+            int s = scores[i];
+            scores[i] = scores[best];
+            scores[best] = s;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package chess.engine;
+
+import java.time.Duration;
+
+/**
+ * Budget for one {@link Search}: the search deepens until any limit is reached. The node and time
+ * limits are checked while an iteration runs, so the best move of the deepest finished iteration
+ * is returned shortly after the budget expires.
+ */
+public record SearchLimits(int maxDepth, long maxNodes, long maxNanos) {
+
+    /** No node or time limit. */
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    public SearchLimits {
+        if (maxDepth < 1 || maxDepth > Search.MAX_PLY) {
+            throw new IllegalArgumentException("maxDepth must be in 1.." + Search.MAX_PLY + ": " + maxDepth);
+        }
+        if (maxNodes < 1) {
+            throw new IllegalArgumentException("maxNodes must be positive: " + maxNodes);
+        }
+        if (maxNanos < 0) {
+            throw new IllegalArgumentException("maxNanos must not be negative: " + maxNanos);
+        }
+    }
+
+    /** Searches to a fixed depth with no other limit. */
+    public static SearchLimits depth(int maxDepth) {
+        return new SearchLimits(maxDepth, UNLIMITED, UNLIMITED);
+    }
+
+    /** Searches as deep as the time allows. */
+    public static SearchLimits time(Duration maxTime) {
+        return new SearchLimits(Search.MAX_PLY, UNLIMITED, maxTime.toNanos());
+    }
+
+    /** Searches as deep as the node count allows. */
+    public static SearchLimits nodes(long maxNodes) {
+        return new SearchLimits(Search.MAX_PLY, maxNodes, UNLIMITED);
+    }
+
+    public SearchLimits withDepth(int maxDepth) {
+        return new SearchLimits(maxDepth, maxNodes, maxNanos);
+    }
+
+    public SearchLimits withNodes(long maxNodes) {
+        return new SearchLimits(maxDepth, maxNodes, maxNanos);
+    }
+
+    public SearchLimits withTime(Duration maxTime) {
+        return new SearchLimits(maxDepth, maxNodes, maxTime.toNanos());
+    }
+}
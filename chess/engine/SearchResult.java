@@ -0,0 +1,28 @@
+package chess.engine;
+
+import chess.Move;
+
+/**
+ * Outcome of a {@link Search}: the best move found (null if the side to move has none), its score
+ * in centipawns from the side to move's point of view, the deepest fully searched depth, and the
+ * work done.
+ */
+public record SearchResult(Move bestMove, int score, int depth, long nodes, long nanos) {
+
+    /** True if the score is a forced mate for either side. */
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+
+    /** Plies to the forced mate (positive if the side to move mates), or 0 if the score is not a mate. */
+    public int matePlies() {
+        if (!isMate()) {
+            return 0;
+        }
+        return score > 0 ? Search.MATE - score : -(Search.MATE + score);
+    }
+
+    public double nodesPerSecond() {
+        return nanos == 0 ? 0.0 : nodes * 1_000_000_000.0 / nanos;
+    }
+}
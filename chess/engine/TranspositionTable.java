@@ -0,0 +1,100 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Lock-free transposition table shared by any number of search threads.
+ * <p>
+ * Each entry is two longs in one flat array: the position key XOR-ed with the data word, and the
+ * data word itself. Threads read and write both without synchronisation; a reader recomputes the
+ * key from the pair, so an entry torn by a concurrent write (or a different position in the same
+ * slot) simply fails to verify and counts as a miss.
+ * <p>
+ * Data layout: bits 0-15 best move ({@link chess.PackedMove}), bits 16-31 score, bits 32-39 depth,
+ * bits 40-41 bound. A stored bound is never 0, so a data word of 0 always means "no entry".
+ */
+public final class TranspositionTable {
+
+    /** The score is exact. */
+    public static final int EXACT = 3;
+    /** The score is a lower bound (the search failed high). */
+    public static final int LOWER = 2;
+    /** The score is an upper bound (no move raised alpha). */
+    public static final int UPPER = 1;
+
+    private final long[] table;
+    private final int mask;
+
+    /**
+     * Creates a table with room for {@code entries} positions, rounded up to a power of two
+     * (16 bytes each).
+     */
+    public TranspositionTable(int entries) {
+        if (entries < 1 || entries > 1 << 28) {
+            throw new IllegalArgumentException("entries must be in 1..2^28: " + entries);
+        }
+        int size = Integer.highestOneBit(entries);
+        if (size < entries) {
+            size <<= 1;
+        }
+        table = new long[size * 2];
+        mask = size - 1;
+    }
+
+    /**
+     * Returns the data word stored for {@code key}, or 0 if there is none.
+     */
+    public long probe(long key) {
+        int i = index(key);
+        long data = table[i + 1];
+        return (table[i] ^ data) == key ? data : 0L;
+    }
+
+    /**
+     * Stores a search result for {@code key}. An entry for the same position is only replaced by a
+     * search at least as deep; entries for other positions are always replaced.
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int i = index(key);
+        long old = table[i + 1];
+        if (old != 0 && (table[i] ^ old) == key && depth(old) > depth) {
+            return;
+        }
+        long data = (move & 0xFFFFL)
+                  | ((score & 0xFFFFL) << 16)
+                  | ((long) (depth & 0xFF) << 32)
+                  | ((long) bound << 40);
+        table[i] = key ^ data;
+        table[i + 1] = data;
+    }
+
+    /** Empties the table, e.g. before timing a fresh search. Not safe while searches are running. */
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    /** Number of entries. */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 32) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> 40) & 0x3);
+    }
+
+    private int index(long key) {
+        return ((int) (key ^ (key >>> 32)) & mask) << 1;
+    }
+}
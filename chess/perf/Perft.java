@@ -0,0 +1,100 @@
+package chess.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import chess.BitBoard;
+import chess.Board;
+import chess.Game;
+import chess.Move;
+import chess.MoveParser;
+
+/**
+ * Command-line perft harness: counts legal move-tree leaves from a position and reports nodes per
+ * second, so move-generation throughput can be compared before and after engine changes.
+ * <p>
+ * Usage: {@code java chess.perf.Perft <depth> [--divide] [--bitboard] [--fen "<fen>"] ["e2 e4" ...]}
+ * <p>
+ * The position under test is the FEN if given, otherwise the initial position; any trailing
+ * arguments are then played from it with {@link Game#apply}. Note that castling and en passant are
+ * not implemented by the engine, so counts only match published perft tables up to the depth where
+ * those moves first appear (depth 4 from the initial position).
+ */
+public final class Perft {
+
+    private Perft() {
+        // utility
+    }
+
+    /**
+     * Result of one perft run.
+     */
+    public record Result(long nodes, long nanos) {
+        public double nodesPerSecond() {
+            return nanos == 0 ? 0.0 : nodes * 1_000_000_000.0 / nanos;
+        }
+    }
+
+    /**
+     * Runs a timed perft on the game's current position.
+     */
+    public static Result run(Game game, int depth) {
+        long start = System.nanoTime();
+        long nodes = game.perft(depth);
+        return new Result(nodes, System.nanoTime() - start);
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("usage: Perft <depth> [--divide] [--bitboard] [--fen <fen>] [moves...]");
+            System.exit(2);
+        }
+        int depth = Integer.parseInt(args[0]);
+        boolean divide = false;
+        boolean bitboard = false;
+        String fen = null;
+        List<String> moves = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--divide" -> divide = true;
+                case "--bitboard" -> bitboard = true;
+                case "--fen" -> fen = args[++i];
+                default -> moves.add(args[i]);
+            }
+        }
+
+        Board board = bitboard ? new BitBoard() : new Board();
+        Game game = fen != null ? Game.fromFen(fen, board) : new Game(board);
+        for (String move : moves) {
+            // Setup moves must be plain legal moves; perft of a different position is worse than none.
+            int parsed = MoveParser.parsePacked(move);
+            boolean plainMove = parsed >= 0 && parsed != MoveParser.RESIGN && (parsed & MoveParser.DRAW_OFFER) == 0;
+            if (!plainMove || !game.tryPlay(parsed)) {
+                System.err.println("Illegal setup move: " + move);
+                System.exit(1);
+            }
+        }
+
+        long start = System.nanoTime();
+        long nodes;
+        if (divide) {
+            nodes = 0;
+            Map<Move, Long> counts = game.divide(depth);
+            for (Map.Entry<Move, Long> e : counts.entrySet()) {
+                System.out.println(e.getKey() + ": " + e.getValue());
+                nodes += e.getValue();
+            }
+            System.out.println();
+            System.out.println("Moves: " + counts.size());
+        } else {
+            nodes = game.perft(depth);
+        }
+        Result result = new Result(nodes, System.nanoTime() - start);
+
+        System.out.println("Nodes: " + result.nodes());
+        System.out.printf(Locale.ROOT, "Time: %.3f s%n", result.nanos() / 1e9);
+        System.out.printf(Locale.ROOT, "Nodes/sec: %.0f%n", result.nodesPerSecond());
+    }
+}
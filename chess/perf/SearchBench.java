@@ -0,0 +1,86 @@
+package chess.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import chess.Game;
+import chess.engine.ParallelSearch;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.TranspositionTable;
+
+/**
+ * Command-line scaling harness for {@link ParallelSearch}: searches one position to a fixed depth
+ * once per thread count, each time with an emptied table, and reports time-to-depth, nodes per
+ * second and the speedup over the first thread count.
+ * <p>
+ * Usage: {@code java chess.perf.SearchBench <depth> [--threads 1,2,4,8] [--fen "<fen>"] [--repeat n]}
+ * <p>
+ * Thread counts default to powers of two up to the number of available processors. With
+ * {@code --repeat} each count is searched n times and the fastest run is reported.
+ */
+public final class SearchBench {
+
+    private static final int TABLE_ENTRIES = 1 << 22;
+
+    private SearchBench() {
+        // utility
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("usage: SearchBench <depth> [--threads 1,2,4,8] [--fen <fen>] [--repeat n]");
+            System.exit(2);
+        }
+        int depth = Integer.parseInt(args[0]);
+        String fen = null;
+        int repeat = 1;
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--fen" -> fen = args[++i];
+                case "--repeat" -> repeat = Integer.parseInt(args[++i]);
+                case "--threads" -> {
+                    for (String n : args[++i].split(",")) {
+                        threadCounts.add(Integer.parseInt(n.trim()));
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        if (threadCounts.isEmpty()) {
+            int cpus = Runtime.getRuntime().availableProcessors();
+            for (int n = 1; n <= cpus; n <<= 1) {
+                threadCounts.add(n);
+            }
+        }
+
+        Game game = fen != null ? Game.fromFen(fen) : new Game();
+        TranspositionTable table = new TranspositionTable(TABLE_ENTRIES);
+        SearchLimits limits = SearchLimits.depth(depth);
+
+        new ParallelSearch(1, table).search(game, limits); // warm-up, so the first row is not all JIT time
+
+        System.out.printf(Locale.ROOT, "%7s %12s %14s %14s %8s  %s%n",
+            "threads", "time (ms)", "nodes", "nodes/sec", "speedup", "best");
+        double baseline = 0;
+        for (int threads : threadCounts) {
+            ParallelSearch search = new ParallelSearch(threads, table);
+            SearchResult fastest = null;
+            for (int r = 0; r < repeat; r++) {
+                table.clear();
+                SearchResult result = search.search(game, limits);
+                if (fastest == null || result.nanos() < fastest.nanos()) {
+                    fastest = result;
+                }
+            }
+            if (baseline == 0) {
+                baseline = fastest.nanos();
+            }
+            System.out.printf(Locale.ROOT, "%7d %12.1f %14d %14.0f %7.2fx  %s (%d)%n",
+                threads, fastest.nanos() / 1e6, fastest.nodes(), fastest.nodesPerSecond(),
+                baseline / fastest.nanos(), fastest.bestMove(), fastest.score());
+        }
+    }
+}
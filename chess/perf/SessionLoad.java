@@ -0,0 +1,270 @@
+package chess.perf;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import chess.ChessServer;
+import chess.SessionServer;
+
+/**
+ * Loopback load generator for the game servers: opens many sessions against an in-process server,
+ * has every session play a fixed number of moves back to back, and reports per-move latency
+ * percentiles, throughput and the memory and threads the server side needed per session.
+ * <p>
+ * Usage: {@code java chess.perf.SessionLoad [--sessions n] [--moves n] [--threads n]
+ * [--modes virtual,platform,nio]}
+ * <p>
+ * Modes: {@code virtual} is a {@link SessionServer} with a virtual thread per session (skipped on
+ * JVMs without virtual threads), {@code platform} a {@link SessionServer} on a fixed pool of
+ * {@code --threads} platform threads, and {@code nio} a {@link ChessServer} with one event loop
+ * per processor. All clients run on a single selector thread, so the client side needs no thread
+ * per session. Every session keeps its connection open until it has played all its moves, so
+ * with a pool smaller than the session count the later sessions queue, and that waiting shows up
+ * in their latency. Each session plays the knights out and back again, which never ends the game.
+ * <p>
+ * Memory is the peak heap growth and, on Linux, the peak resident-set growth divided by the session
+ * count. Like the thread count they are measured from before the server is started, so its threads,
+ * stacks and buffers count even if the warm-up created them, and they include the client ends,
+ * which cost the same in every mode. Both are sampled every 10 ms, so treat them as estimates, and
+ * give the JVM a fixed heap (e.g. {@code -Xms2g -Xmx2g}) so resizing does not blur the figures. The defaults are small; reaching
+ * 50k sessions needs a raised open-file limit ({@code ulimit -n}) because the client and server
+ * ends both count.
+ */
+public final class SessionLoad {
+
+    private static final byte[][] MOVES = {
+        "g1 f3\n".getBytes(StandardCharsets.US_ASCII),
+        "g8 f6\n".getBytes(StandardCharsets.US_ASCII),
+        "f3 g1\n".getBytes(StandardCharsets.US_ASCII),
+        "f6 g8\n".getBytes(StandardCharsets.US_ASCII),
+    };
+    private static final byte[] QUIT = "quit\n".getBytes(StandardCharsets.US_ASCII);
+    private static final long TIMEOUT_NANOS = 300_000_000_000L;
+
+    /** Outcome of one mode: latencies in nanoseconds, sorted, plus peak resource growth. */
+    record Report(String mode, int sessions, long[] latencies, long nanos, long heapBytes, long rssBytes, int threads) {
+        long percentile(double p) {
+            return latencies.length == 0 ? 0 : latencies[Math.min(latencies.length - 1, (int) (p * latencies.length))];
+        }
+    }
+
+    /** Process state before a server starts, so its threads and memory count as growth. */
+    record Baseline(long heapBytes, long rssBytes, int threads) {
+        static Baseline take() throws InterruptedException {
+            // Threads of a server closed just before can take a moment to exit.
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            int count = threads.getThreadCount();
+            for (int i = 0; i < 40; i++) {
+                Thread.sleep(50);
+                int now = threads.getThreadCount();
+                if (now >= count) break;
+                count = now;
+            }
+            System.gc();
+            return new Baseline(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(), rss(),
+                                threads.getThreadCount());
+        }
+    }
+
+    private SessionLoad() {
+        // utility
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int sessions = 1000;
+        int moves = 20;
+        int threads = 256;
+        String[] modes = {"virtual", "platform", "nio"};
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sessions" -> sessions = Integer.parseInt(args[++i]);
+                case "--moves" -> moves = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--modes" -> modes = args[++i].split(",");
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        System.out.printf(Locale.ROOT, "%d sessions x %d moves%n", sessions, moves);
+        System.out.printf(Locale.ROOT, "%-22s %10s %10s %10s %12s %12s %12s %8s%n",
+            "mode", "p50 us", "p99 us", "max us", "moves/s", "heap/sess", "rss/sess", "threads");
+        for (String mode : modes) {
+            Baseline base = Baseline.take(); // before the server's threads and buffers exist
+            Closeable server;
+            InetSocketAddress address;
+            String label;
+            switch (mode.trim()) {
+                case "virtual" -> {
+                    ExecutorService executor = SessionServer.virtualThreads();
+                    if (executor == null) {
+                        System.out.printf("%-22s skipped: this JVM has no virtual threads (Java 21+)%n", mode);
+                        continue;
+                    }
+                    SessionServer s = SessionServer.start(loopback(), executor);
+                    server = s;
+                    address = s.address();
+                    label = "virtual threads";
+                }
+                case "platform" -> {
+                    SessionServer s = SessionServer.start(loopback(), Executors.newFixedThreadPool(threads));
+                    server = s;
+                    address = s.address();
+                    label = threads + " platform threads";
+                }
+                case "nio" -> {
+                    int loops = Runtime.getRuntime().availableProcessors();
+                    ChessServer s = ChessServer.start(loopback(), loops);
+                    server = s;
+                    address = s.address();
+                    label = "nio, " + loops + " loops";
+                }
+                default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+            }
+            try (server) {
+                run(label, address, Math.min(sessions, 50), 2, base); // warm-up
+                Report r = run(label, address, sessions, moves, base);
+                System.out.printf(Locale.ROOT, "%-22s %10.0f %10.0f %10.0f %12.0f %12s %12s %8d%s%n",
+                    r.mode(), r.percentile(0.50) / 1e3, r.percentile(0.99) / 1e3,
+                    r.percentile(1.0) / 1e3, r.latencies().length * 1e9 / r.nanos(),
+                    bytes(r.heapBytes() / r.sessions()), r.rssBytes() < 0 ? "n/a" : bytes(r.rssBytes() / r.sessions()),
+                    r.threads(), r.latencies().length < (long) sessions * moves ? "  (incomplete)" : "");
+            }
+        }
+    }
+
+    private static InetSocketAddress loopback() {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    }
+
+    private static String bytes(long n) {
+        return n >= 10 * 1024 ? (n / 1024) + " KB" : n + " B";
+    }
+
+    /** One client session: its channel, moves sent and the start time of the outstanding move. */
+    private static final class Client {
+        final SocketChannel channel;
+        int sent;
+        long sentAt;
+        int tail; // last bytes received, to spot the end of a reply
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Runs the sessions against the server at {@code address} and reports peak growth over
+     * {@code base}, which should be taken before the server was started.
+     */
+    static Report run(String mode, InetSocketAddress address, int sessions, int moves, Baseline base) throws IOException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        long heapPeak = base.heapBytes();
+        long rssPeak = base.rssBytes();
+        int threadPeak = base.threads();
+
+        long[] latencies = new long[sessions * moves];
+        int done = 0;
+        int finished = 0;
+        ByteBuffer in = ByteBuffer.allocateDirect(1 << 16);
+        long start = System.nanoTime();
+        long nextSample = start;
+        try (Selector selector = Selector.open()) {
+            List<Client> clients = new ArrayList<>(sessions);
+            for (int i = 0; i < sessions; i++) {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                Client client = new Client(channel);
+                clients.add(client);
+                channel.register(selector, SelectionKey.OP_CONNECT, client);
+                channel.connect(address);
+            }
+            while (finished < sessions && System.nanoTime() - start < TIMEOUT_NANOS) {
+                selector.select(10);
+                for (SelectionKey key : selector.selectedKeys()) {
+                    Client client = (Client) key.attachment();
+                    if (key.isConnectable()) {
+                        client.channel.finishConnect();
+                        key.interestOps(SelectionKey.OP_READ);
+                        send(client, moves);
+                        continue;
+                    }
+                    in.clear();
+                    int n = client.channel.read(in);
+                    if (n < 0) {
+                        key.cancel();
+                        client.channel.close();
+                        finished++;
+                        continue;
+                    }
+                    for (int i = 0; i < n; i++) {
+                        client.tail = (client.tail << 8) | (in.get(i) & 0xFF);
+                        if ((client.tail & 0xFFFFFF) == ('h' << 16 | '\n' << 8 | '\n')) { // end of a board
+                            latencies[done++] = System.nanoTime() - client.sentAt;
+                            send(client, moves);
+                        }
+                    }
+                }
+                selector.selectedKeys().clear();
+
+                long now = System.nanoTime();
+                if (now >= nextSample) {
+                    heapPeak = Math.max(heapPeak, memory.getHeapMemoryUsage().getUsed());
+                    rssPeak = Math.max(rssPeak, rss());
+                    threadPeak = Math.max(threadPeak, threadBean.getThreadCount());
+                    nextSample = now + 10_000_000L;
+                }
+            }
+            for (Client client : clients) {
+                client.channel.close();
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        long[] sorted = Arrays.copyOf(latencies, done);
+        Arrays.sort(sorted);
+        return new Report(mode, sessions, sorted, nanos, heapPeak - base.heapBytes(),
+                          base.rssBytes() < 0 ? -1 : rssPeak - base.rssBytes(), threadPeak - base.threads());
+    }
+
+    /** Sends the client's next move, or quit once it has played them all. */
+    private static void send(Client client, int moves) throws IOException {
+        ByteBuffer request = ByteBuffer.wrap(client.sent < moves ? MOVES[client.sent % MOVES.length] : QUIT);
+        client.sentAt = System.nanoTime();
+        client.sent++;
+        while (request.hasRemaining()) {
+            client.channel.write(request); // a few bytes always fit in an empty socket buffer
+        }
+    }
+
+    /** Resident set size of this process in bytes, or -1 where /proc is not available. */
+    private static long rss() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // not Linux
+        }
+        return -1;
+    }
+}
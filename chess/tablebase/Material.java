@@ -0,0 +1,49 @@
+package chess.tablebase;
+
+import chess.PieceType;
+
+/**
+ * Piece sets covered by the tablebase: both kings plus one extra piece, always indexed with the
+ * extra piece on White's side (positions with it on Black's side are probed colour-flipped).
+ * <p>
+ * Position index: {@code side << 18 | whiteKing << 12 | blackKing << 6 | piece}, with side 0 for
+ * White to move and squares as {@link chess.Square#index()}, giving {@link #POSITIONS} entries.
+ */
+public enum Material {
+    KQK(PieceType.QUEEN),
+    KRK(PieceType.ROOK),
+    KPK(PieceType.PAWN);
+
+    /** Entries per table: side to move x white king x black king x extra piece. */
+    public static final int POSITIONS = 2 * 64 * 64 * 64;
+
+    private final PieceType piece;
+
+    Material(PieceType piece) {
+        this.piece = piece;
+    }
+
+    /** Type of the extra piece. */
+    public PieceType piece() {
+        return piece;
+    }
+
+    /** File name of this table inside a tablebase directory, e.g. "KQK.tb". */
+    public String fileName() {
+        return name() + ".tb";
+    }
+
+    /** Table for a lone extra piece of the given type, or null if it is not covered. */
+    public static Material of(PieceType piece) {
+        return switch (piece) {
+            case QUEEN -> KQK;
+            case ROOK -> KRK;
+            case PAWN -> KPK;
+            default -> null;
+        };
+    }
+
+    static int index(boolean blackToMove, int whiteKing, int blackKing, int piece) {
+        return (blackToMove ? 1 << 18 : 0) | (whiteKing << 12) | (blackKing << 6) | piece;
+    }
+}
@@ -0,0 +1,138 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+
+import chess.Color;
+import chess.Game;
+import chess.Piece;
+import chess.PieceType;
+
+/**
+ * Exact endgame results for the {@link Material} sets, probed from memory-mapped files written by
+ * {@link TablebaseGenerator}.
+ * <p>
+ * Each file is the magic {@code "CTB1"}, the entry count as an int, then one byte per position
+ * index: {@link #DRAW}, {@link #ILLEGAL}, or {@code 1 + n} where the side with the extra piece
+ * mates in n plies. A table is 512 KB, and the mapped pages are shared through the OS cache by
+ * every JVM on the host. Probing reads one byte, so one instance can be shared by any number of
+ * threads.
+ */
+public final class Tablebase {
+
+    static final int MAGIC = 0x43544231; // "CTB1"
+    static final int HEADER_BYTES = 8;
+
+    /** Entry value of a drawn position. */
+    static final int DRAW = 0;
+    /** Entry value of a position that cannot arise (e.g. the side not to move in check). */
+    static final int ILLEGAL = 255;
+    /** Longest distance to mate, in plies, an entry can hold. */
+    static final int MAX_DISTANCE = 253;
+
+    /** Result for the side to move. */
+    public enum Outcome { WIN, DRAW, LOSS }
+
+    /**
+     * Probe result: the outcome for the side to move and, unless drawn, the plies until mate with
+     * best play (0 if the side to move is already mated).
+     */
+    public record Result(Outcome outcome, int pliesToMate) { }
+
+    private final Map<Material, ByteBuffer> tables;
+
+    private Tablebase(Map<Material, ByteBuffer> tables) {
+        this.tables = tables;
+    }
+
+    /**
+     * Maps whichever tables exist in {@code directory}; a missing table is simply not probed.
+     *
+     * @throws IOException if a table file exists but cannot be read or is not a table.
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        Map<Material, ByteBuffer> tables = new EnumMap<>(Material.class);
+        for (Material material : Material.values()) {
+            Path path = directory.resolve(material.fileName());
+            if (Files.exists(path)) {
+                tables.put(material, map(path));
+            }
+        }
+        return new Tablebase(tables);
+    }
+
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_BYTES + Material.POSITIONS) {
+                throw new IOException("Not a tablebase file: " + path);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (map.getInt(0) != MAGIC || map.getInt(4) != Material.POSITIONS) {
+                throw new IOException("Not a tablebase file: " + path);
+            }
+            return map.slice(HEADER_BYTES, Material.POSITIONS);
+        }
+    }
+
+    /** Whether the table for {@code material} was found. */
+    public boolean covers(Material material) {
+        return tables.containsKey(material);
+    }
+
+    /**
+     * Looks up the game's current position. Returns null if it is not king and one queen, rook or
+     * pawn against a bare king, if that table is not available, if the position is illegal, or if
+     * the game is already over.
+     */
+    public Result probe(Game game) {
+        if (game.isGameOver()) {
+            return null; // the side to move is no longer meaningful
+        }
+        int whiteKing = -1;
+        int blackKing = -1;
+        int extra = -1;
+        Piece extraPiece = null;
+        for (int sq = 0; sq < 64; sq++) {
+            Piece p = game.pieceOn(sq);
+            if (p == null) continue;
+            if (p.type() == PieceType.KING) {
+                if (p.color() == Color.WHITE) whiteKing = sq;
+                else blackKing = sq;
+            } else if (extraPiece == null) {
+                extra = sq;
+                extraPiece = p;
+            } else {
+                return null; // more than three pieces
+            }
+        }
+        if (extraPiece == null || whiteKing < 0 || blackKing < 0) {
+            return null;
+        }
+        Material material = Material.of(extraPiece.type());
+        ByteBuffer table = material == null ? null : tables.get(material);
+        if (table == null) {
+            return null;
+        }
+
+        // Tables have the extra piece on White's side; otherwise look up the colour-flipped position.
+        boolean strongToMove = game.sideToMove() == extraPiece.color();
+        int index = extraPiece.color() == Color.WHITE
+            ? Material.index(!strongToMove, whiteKing, blackKing, extra)
+            : Material.index(!strongToMove, blackKing ^ 56, whiteKing ^ 56, extra ^ 56);
+        int entry = table.get(index) & 0xFF;
+        if (entry == ILLEGAL) {
+            return null;
+        }
+        if (entry == DRAW) {
+            return new Result(Outcome.DRAW, 0);
+        }
+        return new Result(strongToMove ? Outcome.WIN : Outcome.LOSS, entry - 1);
+    }
+}
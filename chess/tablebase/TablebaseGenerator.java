@@ -0,0 +1,232 @@
+package chess.tablebase;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import chess.Game;
+import chess.PackedMove;
+import chess.PieceType;
+
+/**
+ * Builds {@link Tablebase} files by retrograde analysis.
+ * <p>
+ * Every placement of the two kings and the extra piece is loaded into a {@link Game}, and its legal
+ * moves (so the engine's own rules) are recorded once as successor positions. Checkmates are
+ * distance 0. Then, ply by ply, a White-to-move position is a win in n if some move reaches a
+ * Black-to-move loss in n - 1, and a Black-to-move position is lost in n once every reply is a
+ * White win and the longest of them is n - 1. Whatever is left when two plies in a row change
+ * nothing is a draw. A capture of the extra piece leads to a bare-king draw; a pawn promoting
+ * continues in the KQK or KRK table (minor promotions are draws), so KPK builds those first.
+ * <p>
+ * Usage: {@code java chess.tablebase.TablebaseGenerator <directory>} writes all tables. Peak heap
+ * use is about 64 MB for the successor lists.
+ */
+public final class TablebaseGenerator {
+
+    // Successor encoding: bits 0-18 position index, bits 20+ the table it belongs to.
+    private static final int LOCAL = 0;
+    private static final int IN_KQK = 1 << 20;
+    private static final int IN_KRK = 2 << 20;
+    private static final int DRAW = 3 << 20;
+    private static final int INDEX_MASK = (1 << 20) - 1;
+
+    private static final int UNKNOWN = -1;
+    private static final int ILLEGAL = -2;
+
+    private final Map<Material, byte[]> tables = new EnumMap<>(Material.class);
+
+    /**
+     * Returns the table for {@code material} in the {@link Tablebase} byte encoding, generating it
+     * (and any table it depends on) on first use.
+     */
+    public byte[] table(Material material) {
+        byte[] table = tables.get(material);
+        if (table == null) {
+            table = generate(material);
+            tables.put(material, table);
+        }
+        return table;
+    }
+
+    /**
+     * Generates every table and writes it to {@code directory} under {@link Material#fileName()}.
+     */
+    public void writeAll(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Material material : Material.values()) {
+            write(table(material), directory.resolve(material.fileName()));
+        }
+    }
+
+    private static void write(byte[] table, Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(Tablebase.MAGIC);
+            out.writeInt(table.length);
+            out.write(table);
+        }
+    }
+
+    private byte[] generate(Material material) {
+        byte[] queens = material == Material.KPK ? table(Material.KQK) : null;
+        byte[] rooks = material == Material.KPK ? table(Material.KRK) : null;
+
+        int[] dtm = new int[Material.POSITIONS];
+        Arrays.fill(dtm, ILLEGAL);
+        int[] first = new int[Material.POSITIONS + 1];
+        int[] successors = new int[1 << 20];
+        int count = 0;
+
+        // Pass 1: load every placement and record legal moves as successor positions.
+        int[] moves = new int[Game.MAX_MOVES];
+        StringBuilder fen = new StringBuilder(64);
+        for (int index = 0; index < Material.POSITIONS; index++) {
+            first[index] = count;
+            boolean blackToMove = (index >>> 18) != 0;
+            int wk = (index >>> 12) & 63;
+            int bk = (index >>> 6) & 63;
+            int sq = index & 63;
+            if (wk == bk || sq == wk || sq == bk) continue;
+            if (material == Material.KPK && (sq < 8 || sq >= 56)) continue;
+
+            Game game = Game.fromFen(fen(fen, wk, bk, sq, material.piece(), blackToMove));
+            Game other = Game.fromFen(fen(fen, wk, bk, sq, material.piece(), !blackToMove));
+            if (other.inCheck()) continue; // the side that just moved is in check
+
+            int end = game.legalMoves(moves, 0);
+            if (successors.length - count < end) {
+                successors = Arrays.copyOf(successors, successors.length * 2);
+            }
+            for (int i = 0; i < end; i++) {
+                successors[count++] = successor(material, moves[i], wk, bk, sq, blackToMove);
+            }
+            dtm[index] = end == 0 && blackToMove && game.inCheck() ? 0 : UNKNOWN;
+        }
+        first[Material.POSITIONS] = count;
+
+        // Pass 2: retrograde iteration. White wins land on odd plies, Black losses on even ones.
+        int quiet = 0;
+        for (int ply = 1; quiet < 2; ply++) {
+            boolean whitePly = (ply & 1) == 1;
+            boolean changed = false;
+            int from = whitePly ? 0 : 1 << 18;
+            int to = from + (1 << 18);
+            for (int index = from; index < to; index++) {
+                if (dtm[index] != UNKNOWN || first[index] == first[index + 1]) continue;
+                if (whitePly) {
+                    for (int s = first[index]; s < first[index + 1]; s++) {
+                        if (value(successors[s], dtm, queens, rooks) == ply - 1) {
+                            dtm[index] = ply;
+                            changed = true;
+                            break;
+                        }
+                    }
+                } else {
+                    boolean allLost = true;
+                    for (int s = first[index]; s < first[index + 1] && allLost; s++) {
+                        allLost = value(successors[s], dtm, queens, rooks) >= 0;
+                    }
+                    if (allLost) {
+                        dtm[index] = ply;
+                        changed = true;
+                    }
+                }
+            }
+            quiet = changed ? 0 : quiet + 1;
+        }
+
+        byte[] table = new byte[Material.POSITIONS];
+        for (int index = 0; index < table.length; index++) {
+            int d = dtm[index];
+            if (d > Tablebase.MAX_DISTANCE) {
+                throw new IllegalStateException("Distance to mate does not fit in a byte: " + d);
+            }
+            table[index] = (byte) (d == ILLEGAL ? Tablebase.ILLEGAL : d >= 0 ? d + 1 : Tablebase.DRAW);
+        }
+        return table;
+    }
+
+    /**
+     * Encodes where a legal move leads: the index of the position after it (with the other side to
+     * move) in this table or the table a promotion continues in, or a draw.
+     */
+    private static int successor(Material material, int move, int wk, int bk, int sq, boolean blackToMove) {
+        int from = PackedMove.from(move);
+        int target = PackedMove.to(move);
+        if (blackToMove) {
+            if (target == sq) return DRAW; // the lone king takes the extra piece
+            return LOCAL | Material.index(false, wk, target, sq);
+        }
+        if (from == wk) {
+            return LOCAL | Material.index(true, target, bk, sq);
+        }
+        if (!PackedMove.isPromotion(move)) {
+            return LOCAL | Material.index(true, wk, bk, target);
+        }
+        PieceType promotion = PackedMove.promotion(move);
+        int next = Material.index(true, wk, bk, target);
+        return promotion == PieceType.QUEEN ? IN_KQK | next
+             : promotion == PieceType.ROOK ? IN_KRK | next
+             : DRAW;
+    }
+
+    /**
+     * Distance to mate of a successor position if White wins it, already known; otherwise -1.
+     */
+    private static int value(int successor, int[] dtm, byte[] queens, byte[] rooks) {
+        int index = successor & INDEX_MASK;
+        switch (successor & ~INDEX_MASK) {
+            case LOCAL:
+                return dtm[index] >= 0 ? dtm[index] : -1;
+            case IN_KQK:
+                return external(queens[index]);
+            case IN_KRK:
+                return external(rooks[index]);
+            default:
+                return -1;
+        }
+    }
+
+    private static int external(byte entry) {
+        int v = entry & 0xFF;
+        return v == Tablebase.DRAW || v == Tablebase.ILLEGAL ? -1 : v - 1;
+    }
+
+    private static CharSequence fen(StringBuilder out, int wk, int bk, int sq, PieceType piece, boolean blackToMove) {
+        out.setLength(0);
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                int s = (rank << 3) | file;
+                char c = s == wk ? 'K' : s == bk ? 'k' : s == sq ? piece.algebraicSymbol() : 0;
+                if (c == 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                out.append(c);
+            }
+            if (empty > 0) out.append((char) ('0' + empty));
+            if (rank > 0) out.append('/');
+        }
+        return out.append(blackToMove ? " b" : " w");
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: TablebaseGenerator <directory>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        new TablebaseGenerator().writeAll(Path.of(args[0]));
+        System.out.printf("Generated %d tables in %.1f s%n", Material.values().length, (System.nanoTime() - start) / 1e9);
+    }
+}
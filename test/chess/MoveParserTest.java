@@ -0,0 +1,115 @@
+package chess;
+
+import java.util.Random;
+
+/**
+ * Checks that {@link MoveParser#parsePacked} accepts and rejects exactly what the original
+ * {@link MoveParser#parseSlow} does and encodes the same command. Inputs are every combination of
+ * a set of command bodies with whitespace and control characters at either end, plus a seeded
+ * random sample over an alphabet of move characters, separators and non-ASCII letters.
+ * <p>
+ * Like the benchmarks, these sources live outside the main {@code chess/} tree; the test needs
+ * nothing beyond the JDK. Run {@code java chess.MoveParserTest}, which exits with status 1 on the
+ * first mismatches.
+ */
+public final class MoveParserTest {
+
+    private static final String[] ENDS = {
+        "", " ", "  ", "\t", "\n", "\r\n", "\u0000", "\u001f", "\u000b", " \t\f ",
+    };
+
+    private static final String[] BODIES = {
+        // plain moves, case and separators
+        "e2 e4", "E2 E4", "a1 h8", "h8 a1", "e2  e4", "e2\te4", "e2\u000be4", "e2\fe4", "e2\u001ce4",
+        "e2 e4 ", "e2", "e2e4", "e2 e4 e6", "i2 e4", "e9 e4", "e0 e4", "ee e4", "e22 e4", "",
+        // promotion letters
+        "e7 e8 q", "e7 e8 Q", "a7 a8 r", "a7 a8 R", "b2 b1 b", "b2 b1 B", "g2 g1 n", "g2 g1 N",
+        "e7 e8 k", "e7 e8 p", "e7 e8 x", "e7 e8 QQ", "e7 e8 queen", "e7 e8 Q R",
+        // draw offers
+        "e2 e4 draw?", "e2 e4 DRAW?", "e2 e4 Draw?", "e2 e4 dRaW?", "e2 e4  draw?", "e2 e4\tdraw?",
+        "e7 e8 Q draw?", "e7 e8 n DRAW?", "e2 e4draw?", "e2 e4 draw", "e2 e4 draw??", "draw?",
+        " draw?", "e2 draw?", "e2 e4 draw? draw?",
+        // resign
+        "resign", "RESIGN", "Resign", "ReSiGn", "resign draw?", "resign now", "resigned", "resig",
+        "e2 e4 resign",
+        // non-ASCII
+        "e2 e4 \u00e9", "\u00e92 e4", "e2\u00a0e4", "e2\u2003e4", "e2 e4 dr\u00c5w?", "e2 e4 DRAW\u0130",
+        "r\u00e9sign", "resi\u0131gn", "e7 e8 \u0130", "\uff45\uff12 e4", "e2 e4 \u0000\u00ff",
+    };
+
+    private static final String ALPHABET = "e2 e4a8h1Qqnrbkx?drawDRAWresignRESIGN\t\n\u000b\u001c\u00a0\u00e9\u0130\u0131";
+
+    private static int checked;
+    private static int failures;
+
+    private MoveParserTest() {
+        // utility
+    }
+
+    public static void main(String[] args) {
+        for (String body : BODIES) {
+            for (String before : ENDS) {
+                for (String after : ENDS) {
+                    check(before + body + after);
+                }
+            }
+        }
+        Random random = new Random(20240601L);
+        for (int i = 0; i < 200_000; i++) {
+            char[] chars = new char[random.nextInt(16)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            }
+            check(new String(chars));
+        }
+        check(null);
+
+        System.out.println(checked + " inputs, " + failures + " mismatches");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void check(String input) {
+        checked++;
+        int expected = expected(input);
+        int actual = MoveParser.parsePacked(input);
+        if (actual != expected && failures++ < 20) {
+            System.out.printf("%s: parsePacked %s, parseSlow %s%n", quote(input), describe(actual), describe(expected));
+        }
+    }
+
+    /** The code {@link MoveParser#parsePacked} should return, derived from the slow parser's result. */
+    private static int expected(String input) {
+        Command command;
+        try {
+            command = MoveParser.parseSlow(input);
+        } catch (IllegalArgumentException e) {
+            return MoveParser.INVALID;
+        }
+        if (command instanceof Command.ResignCommand) {
+            return MoveParser.RESIGN;
+        }
+        if (command instanceof Command.MoveWithDrawOffer m) {
+            return PackedMove.of(m.move()) | MoveParser.DRAW_OFFER;
+        }
+        return PackedMove.of(((Command.MoveCommand) command).move());
+    }
+
+    private static String describe(int parsed) {
+        if (parsed == MoveParser.INVALID) return "INVALID";
+        if (parsed == MoveParser.RESIGN) return "RESIGN";
+        String move = PackedMove.toMove(parsed & 0xFFFF).toString();
+        return (parsed & MoveParser.DRAW_OFFER) != 0 ? move + " draw?" : move;
+    }
+
+    private static String quote(String s) {
+        if (s == null) return "null";
+        StringBuilder out = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            if (c >= ' ' && c < 0x7F) out.append(c);
+            else out.append(String.format("\\u%04x", (int) c));
+        }
+        return out.append('"').toString();
+    }
+}